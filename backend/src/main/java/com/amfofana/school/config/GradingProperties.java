@@ -0,0 +1,27 @@
+package com.amfofana.school.config;
+
+import com.amfofana.school.entities.Grade;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Mark-to-grade banding: the lowest mark that earns each grade. Marks below every threshold get FF.
+@Data
+@Component
+@ConfigurationProperties(prefix = "grading")
+public class GradingProperties {
+
+    // School-wide bands, used for every subject without its own
+    private Map<Grade, Double> bands = new EnumMap<>(Map.of(
+            Grade.AA, 90.0, Grade.BA, 85.0, Grade.BB, 80.0, Grade.CB, 75.0,
+            Grade.CC, 70.0, Grade.DC, 65.0, Grade.DD, 60.0));
+
+    // Subject name (case-insensitive) -> bands replacing the school-wide ones for that subject
+    private Map<String, Map<Grade, Double>> subjects = new HashMap<>();
+
+    private int termJobParallelism = 0; // 0 = one worker per CPU core
+}
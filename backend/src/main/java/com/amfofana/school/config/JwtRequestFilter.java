@@ -1,12 +1,16 @@
 package com.amfofana.school.config;
 
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.services.SecurityVersionService;
 import com.amfofana.school.services.UserDetailsServiceImpl;
 import com.amfofana.school.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,18 +27,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtUtil jwtUtil;
+    private final SecurityVersionService securityVersionService;
+    private final boolean statelessPrincipal;
 
-    public JwtRequestFilter(UserDetailsServiceImpl userDetailsService, JwtUtil jwtUtil) {
+    public JwtRequestFilter(UserDetailsServiceImpl userDetailsService, JwtUtil jwtUtil,
+                            SecurityVersionService securityVersionService,
+                            @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
+        this.securityVersionService = securityVersionService;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String username = null;
         String jwt = null;
+        Claims claims = null;
 
         if (request.getCookies() != null) {
             jwt = Arrays.stream(request.getCookies())
@@ -44,19 +54,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                     .orElse(null);
         }
 
+        // Parse and verify the token once; the claims are reused for validation below
         if (jwt != null) {
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = jwtUtil.getAllClaimsFromToken(jwt);
             } catch (Exception e) {
                 logger.warn("JWT token processing error: " + e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = claims.getSubject();
             try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolvePrincipal(claims);
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (userDetails != null && jwtUtil.validateToken(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     usernamePasswordAuthenticationToken
@@ -69,4 +81,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    // In stateless mode the principal comes from the token claims alone; a bumped security version revokes it.
+    // Tokens without a user id, or issued before this instance started, still go through the database.
+    private UserDetails resolvePrincipal(Claims claims) {
+        Object userId = claims.get(JwtUtil.USER_ID_CLAIM);
+        if (statelessPrincipal && userId != null && securityVersionService.isTrusted(claims.getIssuedAt())) {
+            Long id = ((Number) userId).longValue();
+            int version = ((Number) claims.get(JwtUtil.SECURITY_VERSION_CLAIM)).intValue();
+            if (version != securityVersionService.currentVersion(id)) {
+                logger.warn("Revoked token presented for user: " + claims.getSubject());
+                return null;
+            }
+            Role role = Role.valueOf(claims.get(JwtUtil.ROLES_CLAIM, String.class).replace("ROLE_", ""));
+            return new AuthenticatedUser(id, claims.getSubject(), null, role);
+        }
+        return this.userDetailsService.loadUserByUsername(claims.getSubject());
+    }
 }
@@ -1,17 +1,33 @@
 package com.amfofana.school.controllers;
 
+import com.amfofana.school.config.AuthenticatedUser;
+import com.amfofana.school.dto.AbsenteeDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
 import com.amfofana.school.dto.ClasseDTO;
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.dto.RegradeReportDTO;
 import com.amfofana.school.dto.ReportDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
 import com.amfofana.school.dto.UserDTO;
 import com.amfofana.school.entities.*;
-import com.amfofana.school.repositories.UserRepository;
 import com.amfofana.school.services.AdminService;
+import com.amfofana.school.services.AttendanceAnalyticsService;
+import com.amfofana.school.services.ExamStatisticsService;
+import com.amfofana.school.services.ExportService;
+import com.amfofana.school.services.GradingService;
+import com.amfofana.school.utils.ExportRowWriter;
+import com.amfofana.school.utils.Pagination;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,16 +37,19 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
-    private final UserRepository userRepository;
-
-    public AdminController(AdminService adminService, UserRepository userRepository) {
+    private final ExportService exportService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final ExamStatisticsService examStatisticsService;
+    private final GradingService gradingService;
+
+    public AdminController(AdminService adminService, ExportService exportService,
+                           AttendanceAnalyticsService attendanceAnalyticsService,
+                           ExamStatisticsService examStatisticsService, GradingService gradingService) {
         this.adminService = adminService;
-        this.userRepository = userRepository;
-    }
-
-    private User getAuthenticatedUser(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.exportService = exportService;
+        this.attendanceAnalyticsService = attendanceAnalyticsService;
+        this.examStatisticsService = examStatisticsService;
+        this.gradingService = gradingService;
     }
 
     // User Management
@@ -40,8 +59,10 @@ public class AdminController {
     }
 
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(required = false) String role) {
-        return ResponseEntity.ok(adminService.getAllUsers(role));
+    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(required = false) String role,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(adminService.getAllUsers(role, cursor, limit));
     }
 
     @PutMapping("/users/{id}")
@@ -62,8 +83,10 @@ public class AdminController {
     }
 
     @GetMapping("/classes")
-    public ResponseEntity<List<ClasseDTO>> getAllClasses() {
-        return ResponseEntity.ok(adminService.getAllClasses());
+    public ResponseEntity<List<ClasseDTO>> getAllClasses(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String include) {
+        return Pagination.toResponse(adminService.getAllClasses(cursor, limit, "students".equals(include)));
     }
 
     @PutMapping("/classes/{id}")
@@ -92,8 +115,9 @@ public class AdminController {
     }
 
     @GetMapping("/subjects")
-    public ResponseEntity<List<Subject>> getAllSubjects() {
-        return ResponseEntity.ok(adminService.getAllSubjects());
+    public ResponseEntity<List<Subject>> getAllSubjects(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(adminService.getAllSubjects(cursor, limit));
     }
 
     @PutMapping("/subjects/{id}")
@@ -131,8 +155,14 @@ public class AdminController {
     }
 
     @GetMapping("/timetables")
-    public ResponseEntity<List<Timetable>> getAllTimetableEntries() {
-        return ResponseEntity.ok(adminService.getAllTimetableEntries());
+    public ResponseEntity<List<Timetable>> getAllTimetableEntries(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(adminService.getAllTimetableEntries(cursor, limit));
+    }
+
+    @GetMapping("/timetables/classes/{classId}")
+    public ResponseEntity<List<TimetableSlotDTO>> getClassTimetable(@PathVariable Long classId) {
+        return ResponseEntity.ok(adminService.getClassTimetable(classId));
     }
 
     @PutMapping("/timetables/{id}")
@@ -173,21 +203,102 @@ public class AdminController {
 
     // Profile & Settings
     @PutMapping("/profile")
-    public ResponseEntity<User> updateProfile(@AuthenticationPrincipal UserDetails userDetails, @RequestBody Map<String, String> payload) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(adminService.updateProfile(user.getId(), payload));
+    public ResponseEntity<User> updateProfile(@AuthenticationPrincipal AuthenticatedUser currentUser, @RequestBody Map<String, String> payload) {
+        return ResponseEntity.ok(adminService.updateProfile(currentUser.getId(), payload));
     }
 
     @PutMapping("/change-password")
-    public ResponseEntity<?> changePassword(@AuthenticationPrincipal UserDetails userDetails, @RequestBody Map<String, String> payload) {
-        User user = getAuthenticatedUser(userDetails);
-        adminService.changePassword(user.getId(), payload.get("currentPassword"), payload.get("newPassword"));
+    public ResponseEntity<?> changePassword(@AuthenticationPrincipal AuthenticatedUser currentUser, @RequestBody Map<String, String> payload) {
+        adminService.changePassword(currentUser.getId(), payload.get("currentPassword"), payload.get("newPassword"));
         return ResponseEntity.ok().build();
     }
 
     // Results Filtering
     @GetMapping("/results/filter")
-    public ResponseEntity<List<ExamResult>> filterResults(@RequestParam(required = false) Long studentId) {
-        return ResponseEntity.ok(adminService.filterResults(studentId));
+    public ResponseEntity<List<ExamResult>> filterResults(@RequestParam(required = false) Long studentId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(adminService.filterResults(studentId, cursor, limit));
+    }
+
+    // Attendance analytics, answered from the in-memory attendance index
+    @GetMapping("/attendance/students/{studentId}/rate")
+    public ResponseEntity<AttendanceRateDTO> getStudentAttendanceRate(
+            @PathVariable Long studentId,
+            @RequestParam(required = false) Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getStudentRate(studentId, classId, from, to));
+    }
+
+    @GetMapping("/attendance/classes/{classId}/rate")
+    public ResponseEntity<AttendanceRateDTO> getClassAttendanceRate(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getClassRate(classId, from, to));
+    }
+
+    @GetMapping("/attendance/classes/{classId}/daily")
+    public ResponseEntity<List<AttendanceDayDTO>> getDailyPresence(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getDailyPresence(classId, from, to));
+    }
+
+    @GetMapping("/attendance/classes/{classId}/chronic-absentees")
+    public ResponseEntity<List<AbsenteeDTO>> getChronicAbsentees(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0.1") double threshold) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getChronicAbsentees(classId, from, to, threshold));
+    }
+
+    // Exam statistics: mean, spread, percentiles and grade histogram
+    @GetMapping("/statistics/exams/{examId}")
+    public ResponseEntity<ExamStatisticsDTO> getExamStatistics(@PathVariable Long examId) {
+        return ResponseEntity.ok(examStatisticsService.getExamStatistics(examId));
+    }
+
+    @GetMapping("/statistics/classes/{classId}")
+    public ResponseEntity<ExamStatisticsDTO> getClassStatistics(@PathVariable Long classId,
+                                                                @RequestParam(required = false) Long subjectId) {
+        return ResponseEntity.ok(examStatisticsService.getClassStatistics(classId, subjectId));
+    }
+
+    @GetMapping("/statistics/subjects/{subjectId}")
+    public ResponseEntity<ExamStatisticsDTO> getSubjectStatistics(@PathVariable Long subjectId) {
+        return ResponseEntity.ok(examStatisticsService.getSubjectStatistics(subjectId));
+    }
+
+    // Term-end job: regrades every exam dated within the term by the current banding policy
+    @PostMapping("/grading/regrade")
+    public ResponseEntity<RegradeReportDTO> regradeTerm(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(gradingService.regradeTerm(from, to));
+    }
+
+    // Exports: streamed row by row as NDJSON (default) or CSV
+    @GetMapping("/exports/results")
+    public ResponseEntity<StreamingResponseBody> exportResults(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportRowWriter.Format exportFormat = ExportRowWriter.Format.of(format);
+        return exportResponse("exam-results", exportFormat, out -> exportService.exportResults(exportFormat, out));
+    }
+
+    @GetMapping("/exports/attendance")
+    public ResponseEntity<StreamingResponseBody> exportAttendance(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportRowWriter.Format exportFormat = ExportRowWriter.Format.of(format);
+        return exportResponse("attendance", exportFormat, out -> exportService.exportAttendance(exportFormat, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String name, ExportRowWriter.Format format,
+                                                                 StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
     }
 }
@@ -1,10 +1,10 @@
 package com.amfofana.school.controllers;
 
+import com.amfofana.school.config.AuthenticatedUser;
 import com.amfofana.school.dto.JwtResponseDTO;
 import com.amfofana.school.dto.LoginRequestDTO;
 import com.amfofana.school.dto.RegisterRequestDTO;
 import com.amfofana.school.dto.UserDTO;
-import com.amfofana.school.entities.User;
 import com.amfofana.school.services.AuthService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,7 +37,7 @@ public class AuthController {
                 .maxAge(24 * 60 * 60) // 1 day
                 .build();
 
-        ResponseCookie userRoleCookie = ResponseCookie.from("userRole", authService.getRoleFromToken(jwtResponse.getAccessToken()))
+        ResponseCookie userRoleCookie = ResponseCookie.from("userRole", jwtResponse.getRole())
                 .path("/")
                 .maxAge(24 * 60 * 60) // 1 day
                 .build();
@@ -67,7 +67,7 @@ public class AuthController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<UserDTO> getCurrentUser(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(authService.convertToUserDTO(user));
+    public ResponseEntity<UserDTO> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(authService.getCurrentUser(currentUser.getId()));
     }
 }
@@ -1,70 +1,112 @@
 package com.amfofana.school.controllers;
 
+import com.amfofana.school.config.AuthenticatedUser;
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.StudentDashboardDTO;
+import com.amfofana.school.dto.StudentResultDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
 import com.amfofana.school.entities.*;
-import com.amfofana.school.repositories.UserRepository;
+import com.amfofana.school.services.ContentVersions;
+import com.amfofana.school.services.StudentDashboardService;
 import com.amfofana.school.services.StudentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/student")
 @PreAuthorize("hasRole('STUDENT')")
 public class StudentController {
 
+    // Browsers may keep these responses but must revalidate them with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final StudentService studentService;
-    private final UserRepository userRepository;
+    private final ContentVersions contentVersions;
+    private final StudentDashboardService studentDashboardService;
 
-    public StudentController(StudentService studentService, UserRepository userRepository) {
+    public StudentController(StudentService studentService, ContentVersions contentVersions,
+                             StudentDashboardService studentDashboardService) {
         this.studentService = studentService;
-        this.userRepository = userRepository;
+        this.contentVersions = contentVersions;
+        this.studentDashboardService = studentDashboardService;
     }
 
-    private User getAuthenticatedUser(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    // Everything the home page shows in one round trip; sections that could not be read are listed in unavailable
+    @GetMapping("/dashboard")
+    public ResponseEntity<StudentDashboardDTO> getDashboard(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(studentDashboardService.getDashboard(currentUser.getId()));
     }
 
     @GetMapping("/classes")
-    public ResponseEntity<List<Classe>> getStudentClasses(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(studentService.getClassesByStudent(user.getId()));
+    public ResponseEntity<List<Classe>> getStudentClasses(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                          WebRequest request) {
+        return ifModified(currentUser, request, () -> studentService.getClassesByStudent(currentUser.getId()));
     }
 
     @GetMapping("/attendance")
-    public ResponseEntity<List<Attendance>> getStudentAttendance(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(studentService.getAttendanceByStudent(user.getId()));
+    public ResponseEntity<List<Attendance>> getStudentAttendance(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                                 WebRequest request) {
+        return ifModified(currentUser, request, () -> studentService.getAttendanceByStudent(currentUser.getId()));
     }
 
     @GetMapping("/results")
-    public ResponseEntity<List<ExamResult>> getStudentResults(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(studentService.getResultsByStudent(user.getId()));
+    public ResponseEntity<List<StudentResultDTO>> getStudentResults(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                                    WebRequest request) {
+        return ifModified(currentUser, request, () -> studentService.getResultsByStudent(currentUser.getId()));
     }
 
     @GetMapping("/exams")
-    public ResponseEntity<List<Exam>> getStudentExams(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(studentService.getExamsByStudent(user.getId()));
+    public ResponseEntity<List<ExamCalendarEntryDTO>> getStudentExams(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Defaults to the four weeks starting today
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusWeeks(4).minusDays(1);
+        return ResponseEntity.ok(studentService.getExamsByStudent(currentUser.getId(), start, end));
     }
 
     @GetMapping("/materials")
-    public ResponseEntity<List<LearningMaterial>> getStudentMaterials(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(studentService.getMaterialsByStudent(user.getId()));
+    public ResponseEntity<List<LearningMaterial>> getStudentMaterials(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                                      WebRequest request) {
+        return ifModified(currentUser, request, () -> studentService.getMaterialsByStudent(currentUser.getId()));
+    }
+
+    @GetMapping("/timetable")
+    public ResponseEntity<List<TimetableSlotDTO>> getTimetable(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(studentService.getTimetableByStudent(currentUser.getId()));
     }
 
+    // Supports Range for seeking and resuming, and If-None-Match / If-Modified-Since revalidation
     @GetMapping("/materials/{materialId}")
-    public ResponseEntity<?> downloadMaterial(@PathVariable Long materialId) {
-        // This is a placeholder. A real implementation would return a file stream.
-        return ResponseEntity.ok().build();
+    public void downloadMaterial(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable Long materialId,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        studentService.getMaterialDownload(currentUser.getId(), materialId).send(request, response);
+    }
+
+    // The ETag comes from the version counters alone, so a 304 is answered without querying for the body
+    private <T> ResponseEntity<T> ifModified(AuthenticatedUser currentUser, WebRequest request, Supplier<T> body) {
+        // checkNotModified sets the ETag on the response either way
+        if (contentVersions.checkNotModified(request, contentVersions.studentTag(currentUser.getId()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
     }
 }
@@ -1,17 +1,35 @@
 package com.amfofana.school.controllers;
 
+import com.amfofana.school.config.AuthenticatedUser;
+import com.amfofana.school.dto.AbsenteeDTO;
 import com.amfofana.school.dto.AttendanceDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
+import com.amfofana.school.dto.ExamClashDTO;
+import com.amfofana.school.dto.ExamStatisticsDTO;
 import com.amfofana.school.dto.MarksDTO;
+import com.amfofana.school.dto.MarksSubmissionResultDTO;
+import com.amfofana.school.dto.ResultSubmissionDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.dto.UploadRequestDTO;
+import com.amfofana.school.dto.UploadSessionDTO;
 import com.amfofana.school.entities.*;
-import com.amfofana.school.repositories.UserRepository;
+import com.amfofana.school.services.AttendanceAnalyticsService;
+import com.amfofana.school.services.ExamStatisticsService;
+import com.amfofana.school.services.MaterialUploadService;
 import com.amfofana.school.services.TeacherService;
+import com.amfofana.school.services.TimetableEngine;
+import com.amfofana.school.utils.Pagination;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -21,28 +39,35 @@ import java.util.Map;
 public class TeacherController {
 
     private final TeacherService teacherService;
-    private final UserRepository userRepository;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final ExamStatisticsService examStatisticsService;
+    private final TimetableEngine timetableEngine;
+    private final MaterialUploadService materialUploadService;
 
-    public TeacherController(TeacherService teacherService, UserRepository userRepository) {
+    public TeacherController(TeacherService teacherService, AttendanceAnalyticsService attendanceAnalyticsService,
+                             ExamStatisticsService examStatisticsService, TimetableEngine timetableEngine,
+                             MaterialUploadService materialUploadService) {
         this.teacherService = teacherService;
-        this.userRepository = userRepository;
-    }
-
-    private User getAuthenticatedUser(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.attendanceAnalyticsService = attendanceAnalyticsService;
+        this.examStatisticsService = examStatisticsService;
+        this.timetableEngine = timetableEngine;
+        this.materialUploadService = materialUploadService;
     }
 
     @GetMapping("/classes")
-    public ResponseEntity<List<Classe>> getTeacherClasses(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(teacherService.getClassesByTeacher(user.getId()));
+    public ResponseEntity<List<Classe>> getTeacherClasses(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(teacherService.getClassesByTeacher(currentUser.getId()));
     }
 
     @GetMapping("/students")
-    public ResponseEntity<List<User>> getTeacherStudents(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(teacherService.getStudentsByTeacher(user.getId()));
+    public ResponseEntity<List<User>> getTeacherStudents(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(teacherService.getStudentsByTeacher(currentUser.getId()));
+    }
+
+    // The teacher's week across all their classes, from the in-memory timetable
+    @GetMapping("/timetable")
+    public ResponseEntity<List<TimetableSlotDTO>> getTimetable(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(timetableEngine.getTeacherWeek(currentUser.getId()));
     }
 
     @GetMapping("/classes/{classId}/students")
@@ -52,15 +77,57 @@ public class TeacherController {
     }
 
     @PostMapping("/attendance")
-    public ResponseEntity<?> submitAttendance(@RequestBody AttendanceDTO attendanceDTO) {
-        teacherService.submitAttendance(attendanceDTO);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Integer>> submitAttendance(@RequestBody AttendanceDTO attendanceDTO) {
+        int written = teacherService.submitAttendance(attendanceDTO);
+        return ResponseEntity.ok(Map.of("rowsWritten", written));
+    }
+
+    // Attendance analytics, answered from the in-memory attendance index
+    @GetMapping("/attendance/classes/{classId}/rate")
+    public ResponseEntity<AttendanceRateDTO> getClassAttendanceRate(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getClassRate(classId, from, to));
+    }
+
+    @GetMapping("/attendance/classes/{classId}/daily")
+    public ResponseEntity<List<AttendanceDayDTO>> getDailyPresence(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getDailyPresence(classId, from, to));
+    }
+
+    @GetMapping("/attendance/classes/{classId}/chronic-absentees")
+    public ResponseEntity<List<AbsenteeDTO>> getChronicAbsentees(
+            @PathVariable Long classId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0.1") double threshold) {
+        return ResponseEntity.ok(attendanceAnalyticsService.getChronicAbsentees(classId, from, to, threshold));
+    }
+
+    // Exam statistics: mean, spread, percentiles and grade histogram
+    @GetMapping("/statistics/exams/{examId}")
+    public ResponseEntity<ExamStatisticsDTO> getExamStatistics(@PathVariable Long examId) {
+        return ResponseEntity.ok(examStatisticsService.getExamStatistics(examId));
+    }
+
+    @GetMapping("/statistics/classes/{classId}")
+    public ResponseEntity<ExamStatisticsDTO> getClassStatistics(@PathVariable Long classId,
+                                                                @RequestParam(required = false) Long subjectId) {
+        return ResponseEntity.ok(examStatisticsService.getClassStatistics(classId, subjectId));
+    }
+
+    @GetMapping("/statistics/subjects/{subjectId}")
+    public ResponseEntity<ExamStatisticsDTO> getSubjectStatistics(@PathVariable Long subjectId) {
+        return ResponseEntity.ok(examStatisticsService.getSubjectStatistics(subjectId));
     }
 
     @PostMapping("/marks")
-    public ResponseEntity<?> submitMarks(@RequestBody MarksDTO marksDTO) {
-        teacherService.submitMarks(marksDTO);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<MarksSubmissionResultDTO> submitMarks(@RequestBody MarksDTO marksDTO) {
+        return ResponseEntity.ok(teacherService.submitMarks(marksDTO));
     }
 
     @PostMapping("/exams")
@@ -68,9 +135,16 @@ public class TeacherController {
         return ResponseEntity.ok(teacherService.createExam(exam));
     }
 
+    // Checks an exam's time against the other exams and lessons of its students without saving it
+    @PostMapping("/exams/clashes")
+    public ResponseEntity<List<ExamClashDTO>> findExamClashes(@RequestBody Exam exam) {
+        return ResponseEntity.ok(teacherService.findExamClashes(exam));
+    }
+
     @GetMapping("/exams")
-    public ResponseEntity<List<Exam>> getAllExams() {
-        return ResponseEntity.ok(teacherService.getAllExams());
+    public ResponseEntity<List<Exam>> getAllExams(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(teacherService.getAllExams(cursor, limit));
     }
 
     @PutMapping("/exams/{id}")
@@ -85,9 +159,14 @@ public class TeacherController {
     }
 
     @GetMapping("/results")
-    public ResponseEntity<List<ExamResult>> getResults(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(teacherService.getResultsByTeacher(user.getId()));
+    public ResponseEntity<List<ExamResult>> getResults(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                       @RequestParam(required = false) Long examId,
+                                                       @RequestParam(required = false) Long subjectId,
+                                                       @RequestParam(required = false) ExamResult.Status status,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(teacherService.getResultsByTeacher(currentUser.getId(), examId, subjectId,
+                status, cursor, limit));
     }
 
     @PostMapping("/materials")
@@ -95,10 +174,51 @@ public class TeacherController {
         return ResponseEntity.ok(teacherService.uploadLearningMaterial(material));
     }
 
+    // Raw request body, streamed to disk; the Content-Type header is kept as the file's type
+    @PostMapping("/materials/files")
+    public ResponseEntity<LearningMaterial> uploadMaterialFile(@RequestParam Long classId, @RequestParam String fileName,
+                                                               HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(teacherService.uploadLearningMaterialFile(classId, fileName, request.getContentType(),
+                request.getInputStream()));
+    }
+
+    // Resumable uploads: create a session, PUT chunks at their offsets in any order, then commit
+    @PostMapping("/materials/uploads")
+    public ResponseEntity<UploadSessionDTO> createUpload(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                         @RequestBody UploadRequestDTO request) throws IOException {
+        return ResponseEntity.ok(materialUploadService.create(currentUser.getId(), request));
+    }
+
+    @GetMapping("/materials/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                      @PathVariable String uploadId) {
+        return ResponseEntity.ok(materialUploadService.getProgress(currentUser.getId(), uploadId));
+    }
+
+    @PutMapping("/materials/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                        @PathVariable String uploadId, @RequestParam long offset,
+                                                        HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(materialUploadService.writeChunk(currentUser.getId(), uploadId, offset,
+                request.getInputStream()));
+    }
+
+    @PostMapping("/materials/uploads/{uploadId}/commit")
+    public ResponseEntity<LearningMaterial> commitUpload(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                                         @PathVariable String uploadId) throws IOException {
+        return ResponseEntity.ok(materialUploadService.commit(currentUser.getId(), uploadId));
+    }
+
+    @DeleteMapping("/materials/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                          @PathVariable String uploadId) throws IOException {
+        materialUploadService.cancel(currentUser.getId(), uploadId);
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/materials")
-    public ResponseEntity<List<LearningMaterial>> getMaterials(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(teacherService.getMaterialsByTeacher(user.getId()));
+    public ResponseEntity<List<LearningMaterial>> getMaterials(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(teacherService.getMaterialsByTeacher(currentUser.getId()));
     }
 
     @DeleteMapping("/materials/{id}")
@@ -113,15 +233,13 @@ public class TeacherController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<User> updateProfile(@AuthenticationPrincipal UserDetails userDetails, @RequestBody Map<String, String> payload) {
-        User user = getAuthenticatedUser(userDetails);
-        return ResponseEntity.ok(teacherService.updateProfile(user.getId(), payload));
+    public ResponseEntity<User> updateProfile(@AuthenticationPrincipal AuthenticatedUser currentUser, @RequestBody Map<String, String> payload) {
+        return ResponseEntity.ok(teacherService.updateProfile(currentUser.getId(), payload));
     }
 
     @PutMapping("/change-password")
-    public ResponseEntity<?> changePassword(@AuthenticationPrincipal UserDetails userDetails, @RequestBody Map<String, String> payload) {
-        User user = getAuthenticatedUser(userDetails);
-        teacherService.changePassword(user.getId(), payload.get("currentPassword"), payload.get("newPassword"));
+    public ResponseEntity<?> changePassword(@AuthenticationPrincipal AuthenticatedUser currentUser, @RequestBody Map<String, String> payload) {
+        teacherService.changePassword(currentUser.getId(), payload.get("currentPassword"), payload.get("newPassword"));
         return ResponseEntity.ok().build();
     }
 
@@ -136,15 +254,16 @@ public class TeacherController {
     }
 
     @PostMapping("/results/submit")
-    public ResponseEntity<?> submitResults(@RequestBody List<Long> resultIds) {
-        teacherService.submitResults(resultIds);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<ResultSubmissionDTO> submitResults(@RequestBody List<Long> resultIds) {
+        return ResponseEntity.ok(teacherService.submitResults(resultIds));
     }
 
     @GetMapping("/results/filter")
     public ResponseEntity<List<ExamResult>> filterResults(
             @RequestParam(required = false) Long classId,
-            @RequestParam(required = false) Long studentId) {
-        return ResponseEntity.ok(teacherService.filterResults(classId, studentId));
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.toResponse(teacherService.filterResults(classId, studentId, cursor, limit));
     }
 }
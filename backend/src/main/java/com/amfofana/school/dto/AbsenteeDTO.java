@@ -0,0 +1,13 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AbsenteeDTO {
+    private Long studentId;
+    private int absentDays;
+    private int recordedDays;
+    private double absenceRate;
+}
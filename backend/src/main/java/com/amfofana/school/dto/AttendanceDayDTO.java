@@ -0,0 +1,14 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class AttendanceDayDTO {
+    private LocalDate date;
+    private int present;
+    private int recorded;
+}
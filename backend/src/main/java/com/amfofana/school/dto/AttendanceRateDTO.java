@@ -0,0 +1,12 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AttendanceRateDTO {
+    private long presentDays;
+    private long recordedDays;
+    private double rate; // presentDays / recordedDays, 0 when nothing was recorded
+}
@@ -10,5 +10,6 @@ public class ClasseDTO {
     private String name;
     private String grade;
     private UserDTO teacher;
-    private Set<UserDTO> students;
+    private long studentCount;
+    private Set<UserDTO> students; // only filled when the roster is asked for
 }
@@ -0,0 +1,19 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // null on the last page
+
+    public <R> CursorPageDTO<R> map(Function<T, R> mapper) {
+        return new CursorPageDTO<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
@@ -0,0 +1,20 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+public class ExamCalendarEntryDTO {
+    private Long id;
+    private String name;
+    private Long classId;
+    private String className;
+    private String subject;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+}
@@ -0,0 +1,28 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ExamClashDTO {
+
+    public enum Kind {
+        EXAM, LESSON
+    }
+
+    private Kind kind;
+    private Long id; // exam id, or timetable entry id for a lesson
+    private Long classId;
+    private String name; // exam name, or the lesson's subject
+    private LocalDate date; // null for lessons, which repeat every week
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private List<Long> studentIds; // students of the checked exam's class who are expected here too
+}
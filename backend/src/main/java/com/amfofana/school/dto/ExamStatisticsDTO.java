@@ -0,0 +1,25 @@
+package com.amfofana.school.dto;
+
+import com.amfofana.school.entities.Grade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ExamStatisticsDTO {
+    private int count;
+    // The figures below are null when there are no marks
+    private Double mean;
+    private Double median;
+    private Double standardDeviation; // population standard deviation
+    private Double min;
+    private Double max;
+    private Double p10;
+    private Double p25;
+    private Double p75;
+    private Double p90;
+    private Map<Grade, Integer> grades; // every grade, in order, including those nobody got
+    private int ungraded;
+}
@@ -0,0 +1,13 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MarksSubmissionResultDTO {
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private int skipped; // Rows already SUBMITTED, left untouched
+}
@@ -0,0 +1,11 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RegradeReportDTO {
+    private int exams;
+    private int resultsRegraded; // results whose grade changed
+}
@@ -0,0 +1,14 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ResultSubmissionDTO {
+    private int submitted; // DRAFT results moved to SUBMITTED by this call
+    private List<Long> alreadySubmitted;
+    private List<Long> missing; // ids with no result
+}
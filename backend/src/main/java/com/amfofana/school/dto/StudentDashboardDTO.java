@@ -0,0 +1,42 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Sections that could not be read in time are null and named in unavailable
+@Data
+@NoArgsConstructor
+public class StudentDashboardDTO {
+    private List<ClassSummaryDTO> classes;
+    private AttendanceRateDTO attendance;
+    private List<StudentResultDTO> results;
+    private List<ExamCalendarEntryDTO> upcomingExams;
+    private List<MaterialSummaryDTO> materials;
+    private List<String> unavailable;
+
+    @Data
+    @AllArgsConstructor
+    public static class ClassSummaryDTO {
+        private Long id;
+        private String name;
+        private String grade;
+        private String teacherName;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class MaterialSummaryDTO {
+        private Long id;
+        private Long classId;
+        private String className;
+        private String url;
+        private String fileName;
+        private String contentType;
+        private Long size;
+        private LocalDateTime timestamp;
+    }
+}
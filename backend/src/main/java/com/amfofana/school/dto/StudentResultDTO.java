@@ -0,0 +1,20 @@
+package com.amfofana.school.dto;
+
+import com.amfofana.school.entities.Grade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class StudentResultDTO {
+    private Long id;
+    private Long examId;
+    private String examName;
+    private String subject;
+    private String className;
+    private LocalDate date;
+    private Double marks;
+    private Grade grade;
+}
@@ -0,0 +1,20 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+public class TimetableSlotDTO {
+    private Long id;
+    private Long classId;
+    private Long teacherId; // the class teacher; null while the class has none
+    private Long subjectId;
+    private String subject;
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+}
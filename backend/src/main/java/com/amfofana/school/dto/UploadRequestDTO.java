@@ -0,0 +1,12 @@
+package com.amfofana.school.dto;
+
+import lombok.Data;
+
+@Data
+public class UploadRequestDTO {
+    private Long classId;
+    private String fileName;
+    private String contentType;
+    private Long size;
+    private String sha256; // optional; when given, the assembled file must match it
+}
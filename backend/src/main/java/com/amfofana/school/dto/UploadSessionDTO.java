@@ -0,0 +1,20 @@
+package com.amfofana.school.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String id;
+    private Long classId;
+    private String fileName;
+    private long size;
+    private int chunkSize; // every chunk but the last is exactly this long and starts at a multiple of it
+    private long receivedBytes;
+    private List<Long> missingOffsets;
+    private Instant expiresAt; // pushed back by every chunk
+}
@@ -11,7 +11,10 @@ import java.util.Set;
 
 @Entity
 @Data
-@Table(name = "classes")
+@Table(name = "classes", indexes = {
+        // Teacher views start from the teacher's classes
+        @Index(name = "idx_classes_teacher", columnList = "teacher_id")
+})
 public class Classe {
 
     @Id
@@ -48,7 +51,9 @@ public class Classe {
     @JoinTable(
             name = "classe_students",
             joinColumns = @JoinColumn(name = "classe_id"),
-            inverseJoinColumns = @JoinColumn(name = "student_id")
+            inverseJoinColumns = @JoinColumn(name = "student_id"),
+            // Student views resolve their class ids through this table
+            indexes = @Index(name = "idx_classe_students_student", columnList = "student_id")
     )
     // ADD THIS: Hibernate will now handle the join table cleanup
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -1,5 +1,6 @@
 package com.amfofana.school.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,7 +13,12 @@ import java.time.LocalTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "exams")
+@Table(name = "exams", indexes = {
+        // Calendar lookups are by class and date range
+        @Index(name = "idx_exams_class_date", columnList = "class_id, date"),
+        // Subject-wide exam statistics
+        @Index(name = "idx_exams_subject", columnList = "subject_id")
+})
 public class Exam {
 
     @Id
@@ -24,6 +30,7 @@ public class Exam {
 
     @ManyToOne
     @JoinColumn(name = "class_id", nullable = false)
+    @JsonIgnoreProperties("students") // the roster would otherwise be serialized with every exam and result
     private Classe classe;
 
     @ManyToOne
@@ -9,7 +9,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "exam_results")
+@Table(name = "exam_results", uniqueConstraints = {
+        // One result per student per exam; bulk marks submission upserts against this key
+        @UniqueConstraint(name = "uk_exam_results_exam_student", columnNames = {"exam_id", "student_id"})
+}, indexes = {
+        // Students only ever read their own SUBMITTED results
+        @Index(name = "idx_exam_results_student_status", columnList = "student_id, status")
+})
 public class ExamResult {
 
     @Id
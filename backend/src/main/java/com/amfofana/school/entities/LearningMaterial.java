@@ -1,5 +1,7 @@
 package com.amfofana.school.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,7 +14,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "learning_materials")
+@Table(name = "learning_materials", indexes = {
+        // Blob reference counts
+        @Index(name = "idx_learning_materials_sha256", columnList = "sha256")
+})
 public class LearningMaterial {
 
     @Id
@@ -21,11 +26,23 @@ public class LearningMaterial {
 
     @ManyToOne
     @JoinColumn(name = "class_id", nullable = false)
+    @JsonIgnoreProperties("students")
     private Classe classe; // Changed from SchoolClass to Classe
 
     @Column(nullable = false)
     private String url;
 
+    // SHA-256 of the stored file in MaterialBlobStore; null for materials that only link to a url
+    @JsonIgnore
+    @Column(length = 64)
+    private String sha256;
+
+    private String fileName;
+
+    private String contentType;
+
+    private Long size;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime timestamp;
@@ -1,5 +1,6 @@
 package com.amfofana.school.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,6 +25,7 @@ public class Timetable {
     @ManyToOne
     @JoinColumn(name = "class_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE) // Automatically delete timetable entries when a class is deleted
+    @JsonIgnoreProperties("students") // the roster would otherwise be serialized with every entry
     private Classe classe;
 
     @ManyToOne
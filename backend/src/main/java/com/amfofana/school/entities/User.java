@@ -5,7 +5,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -55,12 +57,17 @@ public class User {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Kept out of equals/hashCode/toString: hashing a user (e.g. into a class roster) must not load its classes
     @OneToMany(mappedBy = "teacher")
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Classe> teachingClasses = new HashSet<>();
 
     @ManyToMany(mappedBy = "students")
     @OnDelete(action = OnDeleteAction.CASCADE) // ADD THIS HERE
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Classe> enrolledClasses = new HashSet<>();
 }
@@ -8,7 +8,8 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, AttendanceRepositoryCustom {
     void deleteByStudent(User student);
     List<Attendance> findByStudent(User student);
+    List<Attendance> findByStudent_Id(Long studentId);
 }
@@ -0,0 +1,11 @@
+package com.amfofana.school.repositories;
+
+import com.amfofana.school.dto.AttendanceDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceRepositoryCustom {
+    // Writes the whole roster in a single JDBC batch and returns the number of rows inserted
+    int insertAll(Long classId, LocalDate date, List<AttendanceDTO.AttendanceRecordDTO> records);
+}
@@ -0,0 +1,44 @@
+package com.amfofana.school.repositories;
+
+import com.amfofana.school.dto.AttendanceDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+public class AttendanceRepositoryCustomImpl implements AttendanceRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO attendance (class_id, student_id, status, date) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll(Long classId, LocalDate date, List<AttendanceDTO.AttendanceRecordDTO> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        // Attendance ids are IDENTITY generated, so Hibernate cannot batch these inserts; plain JDBC can.
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, record) -> {
+            ps.setLong(1, classId);
+            ps.setLong(2, record.getStudentId());
+            ps.setBoolean(3, record.isPresent());
+            ps.setDate(4, Date.valueOf(date));
+        });
+
+        int written = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Rewritten multi-row inserts report SUCCESS_NO_INFO instead of a row count
+                written += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return written;
+    }
+}
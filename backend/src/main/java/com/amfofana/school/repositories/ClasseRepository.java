@@ -1,14 +1,61 @@
 package com.amfofana.school.repositories;
 
+import com.amfofana.school.dto.StudentDashboardDTO;
 import com.amfofana.school.entities.Classe;
 import com.amfofana.school.entities.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ClasseRepository extends JpaRepository<Classe, Long> {
     List<Classe> findByTeacher(User teacher);
     List<Classe> findByStudentsContains(User student);
+    List<Classe> findByStudents_Id(Long studentId);
+    boolean existsByIdAndStudents_Id(Long id, Long studentId);
+
+    @Query("select c.id from Classe c where c.teacher.id = :teacherId")
+    List<Long> findIdsByTeacherId(@Param("teacherId") Long teacherId);
+
+    @Query("select c.id from Classe c join c.students s where s.id = :studentId")
+    List<Long> findIdsByStudentId(@Param("studentId") Long studentId);
+
+    // Neither the roster nor the teacher entity is loaded
+    @Query("""
+            select new com.amfofana.school.dto.StudentDashboardDTO$ClassSummaryDTO(c.id, c.name, c.grade, t.name)
+            from Classe c join c.students s left join c.teacher t
+            where s.id = :studentId
+            order by c.name, c.id
+            """)
+    List<StudentDashboardDTO.ClassSummaryDTO> findSummariesByStudentId(@Param("studentId") Long studentId);
+
+    // Teacher is joined into the page query instead of being selected once per class
+    @EntityGraph(attributePaths = "teacher")
+    List<Classe> findByIdGreaterThan(Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"teacher", "students"})
+    @Query("select c from Classe c where c.id in :ids")
+    List<Classe> findWithStudentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.id as classeId, count(s) as students from Classe c join c.students s where c.id in :ids group by c.id")
+    List<StudentCount> countStudentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.id as classId, s.id as studentId from Classe c join c.students s")
+    List<Enrollment> findAllEnrollments();
+
+    interface Enrollment {
+        Long getClassId();
+        Long getStudentId();
+    }
+
+    interface StudentCount {
+        Long getClasseId();
+        long getStudents();
+    }
 }
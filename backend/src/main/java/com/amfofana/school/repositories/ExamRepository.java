@@ -1,15 +1,55 @@
 package com.amfofana.school.repositories;
 
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
 import com.amfofana.school.entities.Classe;
 import com.amfofana.school.entities.Exam;
 import com.amfofana.school.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, Long> {
     List<Exam> findByClasse_Teacher(User teacher);
     List<Exam> findByClasse(Classe classe);
+    List<Exam> findByIdGreaterThan(Long afterId, Pageable pageable);
+
+    // Served by idx_exams_class_date
+    @Query("""
+            select new com.amfofana.school.dto.ExamCalendarEntryDTO(e.id, e.name, c.id, c.name, s.name, e.date,
+                e.startTime, e.endTime)
+            from Exam e join e.classe c join e.subject s
+            where c.id in :classIds and e.date between :from and :to
+            """)
+    List<ExamCalendarEntryDTO> findCalendarEntries(@Param("classIds") Collection<Long> classIds,
+                                                   @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            select new com.amfofana.school.dto.ExamCalendarEntryDTO(e.id, e.name, c.id, c.name, s.name, e.date,
+                e.startTime, e.endTime)
+            from Exam e join e.classe c join e.subject s
+            """)
+    List<ExamCalendarEntryDTO> findAllCalendarEntries();
+
+    // Either filter may be null; class lookups use idx_exams_class_date, subject lookups idx_exams_subject
+    @Query("""
+            select e.id from Exam e
+            where (:classId is null or e.classe.id = :classId)
+              and (:subjectId is null or e.subject.id = :subjectId)
+            """)
+    List<Long> findIds(@Param("classId") Long classId, @Param("subjectId") Long subjectId);
+
+    @Query("select e.id as id, s.name as subjectName from Exam e join e.subject s where e.date between :from and :to")
+    List<ExamSubject> findSubjectsByDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface ExamSubject {
+        Long getId();
+        String getSubjectName();
+    }
 }
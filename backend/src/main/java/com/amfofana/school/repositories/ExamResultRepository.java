@@ -1,15 +1,69 @@
 package com.amfofana.school.repositories;
 
+import com.amfofana.school.dto.StudentResultDTO;
 import com.amfofana.school.entities.ExamResult;
+import com.amfofana.school.entities.Grade;
 import com.amfofana.school.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ExamResultRepository extends JpaRepository<ExamResult, Long> {
+public interface ExamResultRepository extends JpaRepository<ExamResult, Long>, ExamResultRepositoryCustom {
     List<ExamResult> findByStudent(User student);
     List<ExamResult> findByExam_Classe_Id(Long classId);
     List<ExamResult> findByStudent_Id(Long studentId);
+    List<ExamResult> findByIdGreaterThan(Long afterId, Pageable pageable);
+    List<ExamResult> findByExam_Classe_IdAndIdGreaterThan(Long classId, Long afterId, Pageable pageable);
+    List<ExamResult> findByStudent_IdAndIdGreaterThan(Long studentId, Long afterId, Pageable pageable);
+
+    // Served by idx_exam_results_student_status; only the columns the student view shows are read
+    @Query("""
+            select new com.amfofana.school.dto.StudentResultDTO(r.id, e.id, e.name, s.name, c.name, e.date,
+                r.marks, r.grade)
+            from ExamResult r join r.exam e join e.subject s join e.classe c
+            where r.student.id = :studentId and r.status = :status
+            order by e.date desc, r.id
+            """)
+    List<StudentResultDTO> findResultsByStudent(@Param("studentId") Long studentId,
+                                                @Param("status") ExamResult.Status status);
+
+    // One statement per page: results of exams in the teacher's classes, with the exam, class, subject and student joined in
+    @Query("""
+            select r from ExamResult r
+            join fetch r.exam e
+            join fetch e.classe c
+            join fetch c.teacher t
+            join fetch e.subject s
+            join fetch r.student
+            where t.id = :teacherId
+              and r.id > :afterId
+              and (:examId is null or e.id = :examId)
+              and (:subjectId is null or s.id = :subjectId)
+              and (:status is null or r.status = :status)
+            """)
+    List<ExamResult> findByTeacher(@Param("teacherId") Long teacherId, @Param("examId") Long examId,
+                                   @Param("subjectId") Long subjectId, @Param("status") ExamResult.Status status,
+                                   @Param("afterId") Long afterId, Pageable pageable);
+
+    // Only what exam statistics need, for the results of the given exams in one status; served by
+    // uk_exam_results_exam_student
+    @Query("""
+            select r.exam.id as examId, r.marks as marks, r.grade as grade
+            from ExamResult r
+            where r.exam.id in :examIds and r.status = :status
+            """)
+    List<MarkRow> findMarksByExamIdIn(@Param("examIds") Collection<Long> examIds,
+                                      @Param("status") ExamResult.Status status);
+
+    interface MarkRow {
+        Long getExamId();
+        Double getMarks();
+        Grade getGrade();
+    }
 }
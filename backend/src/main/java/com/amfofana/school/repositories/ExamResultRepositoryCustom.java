@@ -0,0 +1,25 @@
+package com.amfofana.school.repositories;
+
+import com.amfofana.school.dto.MarksSubmissionResultDTO;
+import com.amfofana.school.utils.GradeBands;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ExamResultRepositoryCustom {
+    // Inserts or updates one DRAFT row per student for the exam in a single statement
+    MarksSubmissionResultDTO upsertMarks(Long examId, Map<Long, Double> marksByStudent);
+
+    // Grades an exam's results from their marks in one statement; rows that already hold the right grade are not rewritten
+    int applyGradeBandsToExam(Long examId, GradeBands bands);
+
+    // Moves the DRAFT results among the ids to SUBMITTED and grades them by their subject's bands, in one statement.
+    // Returns one row per distinct id.
+    List<SubmissionRow> submitDrafts(Collection<Long> resultIds, GradeBands schoolBands,
+                                     Map<String, GradeBands> subjectBands);
+
+    // examId and studentId are only set when this call submitted the result; exists is false for ids with no result
+    record SubmissionRow(Long resultId, Long examId, Long studentId, boolean submitted, boolean exists) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.amfofana.school.repositories;
+
+import com.amfofana.school.dto.MarksSubmissionResultDTO;
+import com.amfofana.school.utils.GradeBands;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class ExamResultRepositoryCustomImpl implements ExamResultRepositoryCustom {
+
+    // Rows that are already SUBMITTED are never touched; rows with identical marks are not rewritten.
+    // (xmax = 0) is true only for freshly inserted tuples, which lets one statement report both counts.
+    private static final String UPSERT_SQL = """
+            WITH input AS (
+                SELECT * FROM unnest(?::bigint[], ?::float8[]) AS t(student_id, marks)
+            ), upserted AS (
+                INSERT INTO exam_results (exam_id, student_id, marks, status)
+                SELECT ?, student_id, marks, 'DRAFT' FROM input
+                ON CONFLICT (exam_id, student_id) DO UPDATE SET marks = EXCLUDED.marks
+                WHERE exam_results.status = 'DRAFT' AND exam_results.marks IS DISTINCT FROM EXCLUDED.marks
+                RETURNING (xmax = 0) AS inserted
+            )
+            SELECT
+                (SELECT count(*) FROM upserted WHERE inserted) AS inserted,
+                (SELECT count(*) FROM upserted WHERE NOT inserted) AS updated,
+                (SELECT count(*) FROM exam_results r JOIN input i ON r.student_id = i.student_id
+                    WHERE r.exam_id = ? AND r.status = 'SUBMITTED') AS skipped
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExamResultRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public MarksSubmissionResultDTO upsertMarks(Long examId, Map<Long, Double> marksByStudent) {
+        int total = marksByStudent.size();
+        if (total == 0) {
+            return new MarksSubmissionResultDTO(0, 0, 0, 0);
+        }
+        Long[] studentIds = marksByStudent.keySet().toArray(new Long[0]);
+        Double[] marks = marksByStudent.values().toArray(new Double[0]);
+
+        List<MarksSubmissionResultDTO> rows = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", studentIds));
+            ps.setArray(2, con.createArrayOf("float8", marks));
+            ps.setLong(3, examId);
+            ps.setLong(4, examId);
+            return ps;
+        }, (rs, rowNum) -> {
+            int inserted = rs.getInt("inserted");
+            int updated = rs.getInt("updated");
+            int skipped = rs.getInt("skipped");
+            return new MarksSubmissionResultDTO(inserted, updated, total - inserted - updated - skipped, skipped);
+        });
+        return rows.get(0);
+    }
+
+    @Override
+    public int applyGradeBandsToExam(Long examId, GradeBands bands) {
+        List<Object> gradeParams = new ArrayList<>();
+        String grade = gradeCase(bands, "marks", gradeParams);
+        List<Object> params = new ArrayList<>(gradeParams);
+        params.add(examId);
+        params.addAll(gradeParams);
+        return jdbcTemplate.update("UPDATE exam_results SET grade = " + grade
+                + " WHERE exam_id = ? AND grade IS DISTINCT FROM " + grade, params.toArray());
+    }
+
+    // The statement sees the table as it was before the update, so a requested id is: submitted if the update
+    // returned it, otherwise already submitted (or submitted concurrently) if the row exists, otherwise missing.
+    @Override
+    public List<SubmissionRow> submitDrafts(Collection<Long> resultIds, GradeBands schoolBands,
+                                            Map<String, GradeBands> subjectBands) {
+        if (resultIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> gradeParams = new ArrayList<>();
+        String grade = subjectGradeCase(schoolBands, subjectBands, gradeParams);
+        String sql = """
+                WITH input AS (
+                    SELECT DISTINCT unnest(?::bigint[]) AS id
+                ), submitted AS (
+                    UPDATE exam_results r SET status = 'SUBMITTED', grade = %s
+                    FROM exams e JOIN subjects s ON s.id = e.subject_id
+                    WHERE e.id = r.exam_id AND r.id IN (SELECT id FROM input) AND r.status = 'DRAFT'
+                    RETURNING r.id, r.exam_id, r.student_id
+                )
+                SELECT i.id, sub.exam_id, sub.student_id, sub.id IS NOT NULL AS submitted, r.id IS NOT NULL AS present
+                FROM input i
+                LEFT JOIN submitted sub ON sub.id = i.id
+                LEFT JOIN exam_results r ON r.id = i.id
+                ORDER BY i.id
+                """.formatted(grade);
+        Long[] ids = resultIds.toArray(new Long[0]);
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            int index = 2;
+            for (Object param : gradeParams) {
+                ps.setObject(index++, param);
+            }
+            return ps;
+        }, (rs, rowNum) -> new SubmissionRow(rs.getLong(1), rs.getObject(2, Long.class),
+                rs.getObject(3, Long.class), rs.getBoolean(4), rs.getBoolean(5)));
+    }
+
+    // CASE lower(s.name) WHEN ? THEN <subject bands> ... ELSE <school bands> END, over r.marks
+    private static String subjectGradeCase(GradeBands schoolBands, Map<String, GradeBands> subjectBands,
+                                           List<Object> params) {
+        if (subjectBands.isEmpty()) {
+            return gradeCase(schoolBands, "r.marks", params);
+        }
+        StringBuilder sql = new StringBuilder("CASE lower(s.name)");
+        subjectBands.forEach((subject, bands) -> {
+            params.add(subject.toLowerCase(Locale.ROOT));
+            sql.append(" WHEN ? THEN ").append(gradeCase(bands, "r.marks", params));
+        });
+        return sql.append(" ELSE ").append(gradeCase(schoolBands, "r.marks", params)).append(" END").toString();
+    }
+
+    // CASE WHEN <marks> >= ? THEN 'AA' ... ELSE 'FF' END. Grade names come from the enum; only thresholds are bound.
+    private static String gradeCase(GradeBands bands, String marksColumn, List<Object> params) {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (GradeBands.Band band : bands.bands()) {
+            sql.append(" WHEN ").append(marksColumn).append(" >= ? THEN '").append(band.grade().name()).append("'");
+            params.add(band.minMark());
+        }
+        return sql.append(" ELSE 'FF' END").toString();
+    }
+}
@@ -2,12 +2,25 @@ package com.amfofana.school.repositories;
 
 import com.amfofana.school.entities.Classe;
 import com.amfofana.school.entities.LearningMaterial;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface LearningMaterialRepository extends JpaRepository<LearningMaterial, Long> {
     List<LearningMaterial> findByClasse(Classe classe);
+
+    // Fully initialized so the results can be cached and serialized outside a session
+    @EntityGraph(attributePaths = {"classe", "classe.teacher"})
+    List<LearningMaterial> findByClasse_IdIn(Collection<Long> classIds);
+
+    long countBySha256(String sha256);
+
+    @Query("select distinct m.sha256 from LearningMaterial m where m.sha256 is not null")
+    Set<String> findAllSha256();
 }
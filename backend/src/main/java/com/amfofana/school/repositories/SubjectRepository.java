@@ -1,9 +1,13 @@
 package com.amfofana.school.repositories;
 
 import com.amfofana.school.entities.Subject;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
+    List<Subject> findByIdGreaterThan(Long afterId, Pageable pageable);
 }
@@ -1,9 +1,23 @@
 package com.amfofana.school.repositories;
 
+import com.amfofana.school.dto.TimetableSlotDTO;
 import com.amfofana.school.entities.Timetable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TimetableRepository extends JpaRepository<Timetable, Long> {
+    List<Timetable> findByIdGreaterThan(Long afterId, Pageable pageable);
+
+    // Every slot with its class teacher and subject name, for building the in-memory timetable
+    @Query("""
+            select new com.amfofana.school.dto.TimetableSlotDTO(t.id, c.id, teacher.id, s.id, s.name, t.dayOfWeek,
+                t.startTime, t.endTime)
+            from Timetable t join t.classe c left join c.teacher teacher join t.subject s
+            """)
+    List<TimetableSlotDTO> findAllSlots();
 }
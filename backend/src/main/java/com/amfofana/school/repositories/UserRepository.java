@@ -2,9 +2,13 @@ package com.amfofana.school.repositories;
 
 import com.amfofana.school.entities.Role;
 import com.amfofana.school.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +17,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     List<User> findByRole(Role role);
     long countByRole(Role role);
+    List<User> findByIdGreaterThan(Long afterId, Pageable pageable);
+    List<User> findByRoleAndIdGreaterThan(Role role, Long afterId, Pageable pageable);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
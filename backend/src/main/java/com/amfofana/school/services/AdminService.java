@@ -1,10 +1,14 @@
 package com.amfofana.school.services;
 
 import com.amfofana.school.dto.ClasseDTO;
+import com.amfofana.school.dto.CursorPageDTO;
 import com.amfofana.school.dto.ReportDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
 import com.amfofana.school.dto.UserDTO;
 import com.amfofana.school.entities.*;
 import com.amfofana.school.repositories.*;
+import com.amfofana.school.utils.AfterCommit;
+import com.amfofana.school.utils.Pagination;
 import jakarta.transaction.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,6 +17,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,13 +34,29 @@ public class AdminService {
     private final TimetableRepository timetableRepository;
     private final PasswordEncoder passwordEncoder;
     private final ExamResultRepository examResultRepository;
+    private final SecurityVersionService securityVersionService;
+    private final Pagination pagination;
+    private final LearningMaterialCache learningMaterialCache;
+    private final SummaryReportService summaryReportService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final TimetableEngine timetableEngine;
+    private final ExamClashDetector examClashDetector;
+    private final MaterialBlobStore materialBlobStore;
+    private final ContentVersions contentVersions;
 
     public AdminService(UserRepository userRepository, ClasseRepository classeRepository,
                         TeacherProfileRepository teacherProfileRepository, StudentProfileRepository studentProfileRepository,
                         AttendanceRepository attendanceRepository, ExamRepository examRepository,
                         SubjectRepository subjectRepository, LearningMaterialRepository learningMaterialRepository,
                         TimetableRepository timetableRepository, PasswordEncoder passwordEncoder,
-                        ExamResultRepository examResultRepository) {
+                        ExamResultRepository examResultRepository,
+                        SecurityVersionService securityVersionService, Pagination pagination, LearningMaterialCache learningMaterialCache,
+                        SummaryReportService summaryReportService,
+                        AttendanceAnalyticsService attendanceAnalyticsService,
+                        TimetableEngine timetableEngine,
+                        ExamClashDetector examClashDetector,
+                        MaterialBlobStore materialBlobStore,
+                        ContentVersions contentVersions) {
         this.userRepository = userRepository;
         this.classeRepository = classeRepository;
         this.teacherProfileRepository = teacherProfileRepository;
@@ -47,6 +68,15 @@ public class AdminService {
         this.timetableRepository = timetableRepository;
         this.passwordEncoder = passwordEncoder;
         this.examResultRepository = examResultRepository;
+        this.securityVersionService = securityVersionService;
+        this.pagination = pagination;
+        this.learningMaterialCache = learningMaterialCache;
+        this.summaryReportService = summaryReportService;
+        this.attendanceAnalyticsService = attendanceAnalyticsService;
+        this.timetableEngine = timetableEngine;
+        this.examClashDetector = examClashDetector;
+        this.materialBlobStore = materialBlobStore;
+        this.contentVersions = contentVersions;
     }
 
     // User CRUD
@@ -54,21 +84,25 @@ public class AdminService {
         String userId = String.format("%012d", Math.abs(UUID.randomUUID().getMostSignificantBits()));
         user.setUserId(userId.substring(0, 12));
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        summaryReportService.userAdded(saved.getRole());
+        return saved;
     }
 
-    public List<UserDTO> getAllUsers(String role) {
+    public CursorPageDTO<UserDTO> getAllUsers(String role, String cursor, Integer limit) {
+        long afterId = pagination.afterId(cursor);
         List<User> users;
         if (role != null && !role.isEmpty()) {
-            users = userRepository.findByRole(Role.valueOf(role.toUpperCase()));
+            users = userRepository.findByRoleAndIdGreaterThan(Role.valueOf(role.toUpperCase()), afterId, pagination.keyset(limit));
         } else {
-            users = userRepository.findAll();
+            users = userRepository.findByIdGreaterThan(afterId, pagination.keyset(limit));
         }
-        return users.stream().map(this::convertToUserDTO).collect(Collectors.toList());
+        return pagination.page(users, limit, User::getId).map(this::convertToUserDTO);
     }
 
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
+        Role previousRole = user.getRole();
         user.setName(userDetails.getName());
         user.setEmail(userDetails.getEmail());
         user.setRole(userDetails.getRole());
@@ -79,7 +113,15 @@ public class AdminService {
         user.setGender(userDetails.getGender());
         user.setPhoneNumber(userDetails.getPhoneNumber());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        securityVersionService.revoke(id); // Role or email may have changed
+        classeRepository.findIdsByTeacherId(id).forEach(learningMaterialCache::evict); // materials embed the teacher
+        contentVersions.userChanged(id);
+        if (saved.getRole() != previousRole) {
+            summaryReportService.userRemoved(previousRole);
+            summaryReportService.userAdded(saved.getRole());
+        }
+        return saved;
     }
 
     @Transactional
@@ -94,30 +136,64 @@ public class AdminService {
             // This avoids the "referenced from table classes" error
             for (Classe classe : user.getTeachingClasses()) {
                 classe.setTeacher(null);
+                learningMaterialCache.evict(classe.getId());
+                contentVersions.classChanged(classe.getId());
             }
+            AfterCommit.run(() -> timetableEngine.removeTeacher(user.getId()));
         } else if (user.getRole() == Role.STUDENT) {
             studentProfileRepository.findByUser(user).ifPresent(studentProfileRepository::delete);
             attendanceRepository.deleteByStudent(user);
+            attendanceAnalyticsService.removeStudent(user.getId());
+            AfterCommit.run(() -> examClashDetector.removeStudent(user.getId()));
 
             // IMPORTANT: Remove this student from all class enrollments
             // This fixes the "referenced from table classe_students" error
             for (Classe classe : user.getEnrolledClasses()) {
                 classe.getStudents().remove(user);
+                contentVersions.classChanged(classe.getId());
             }
+            contentVersions.studentChanged(user.getId());
         }
 
         // 2. Finally, delete the user
         userRepository.delete(user);
+        securityVersionService.revoke(id);
+        summaryReportService.userRemoved(user.getRole());
     }
 
     // Class CRUD
     public ClasseDTO createClass(Classe classe) {
         Classe savedClasse = classeRepository.save(classe);
+        if (savedClasse.getStudents() != null) {
+            savedClasse.getStudents().forEach(student -> {
+                examClashDetector.enroll(savedClasse.getId(), student.getId());
+                contentVersions.studentChanged(student.getId());
+            });
+        }
+        summaryReportService.classAdded();
         return convertToClasseDTO(savedClasse);
     }
 
-    public List<ClasseDTO> getAllClasses() {
-        return classeRepository.findAll().stream().map(this::convertToClasseDTO).collect(Collectors.toList());
+    // Two queries per page whatever its size: classes with their teacher, then either student counts or rosters
+    public CursorPageDTO<ClasseDTO> getAllClasses(String cursor, Integer limit, boolean includeStudents) {
+        List<Classe> classes = classeRepository.findByIdGreaterThan(pagination.afterId(cursor), pagination.keyset(limit));
+        CursorPageDTO<Classe> page = pagination.page(classes, limit, Classe::getId);
+        List<Long> ids = page.getItems().stream().map(Classe::getId).toList();
+        if (ids.isEmpty()) {
+            return page.map(this::convertToClasseSummaryDTO);
+        }
+        if (includeStudents) {
+            Map<Long, Classe> withStudents = classeRepository.findWithStudentsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(Classe::getId, Function.identity()));
+            return page.map(classe -> convertToClasseDTO(withStudents.get(classe.getId())));
+        }
+        Map<Long, Long> counts = classeRepository.countStudentsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ClasseRepository.StudentCount::getClasseId, ClasseRepository.StudentCount::getStudents));
+        return page.map(classe -> {
+            ClasseDTO classeDTO = convertToClasseSummaryDTO(classe);
+            classeDTO.setStudentCount(counts.getOrDefault(classe.getId(), 0L));
+            return classeDTO;
+        });
     }
 
     public ClasseDTO updateClass(Long id, Classe classeDetails) {
@@ -125,11 +201,20 @@ public class AdminService {
         classe.setName(classeDetails.getName());
         classe.setGrade(classeDetails.getGrade());
         Classe updatedClasse = classeRepository.save(classe);
+        learningMaterialCache.evict(id);
+        contentVersions.classChanged(id);
         return convertToClasseDTO(updatedClasse);
     }
 
     public void deleteClass(Long id) {
-        classeRepository.deleteById(id);
+        classeRepository.findById(id).ifPresent(classe -> {
+            List<Long> studentIds = classe.getStudents().stream().map(User::getId).toList();
+            classeRepository.delete(classe);
+            contentVersions.studentsChanged(studentIds);
+            timetableEngine.removeClass(id);
+            examClashDetector.removeClass(id);
+            summaryReportService.classRemoved();
+        });
     }
 
     // Exam Management
@@ -147,26 +232,38 @@ public class AdminService {
 
     // Subject CRUD
     public Subject createSubject(Subject subject) {
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        summaryReportService.subjectAdded();
+        return saved;
     }
 
-    public List<Subject> getAllSubjects() {
-        return subjectRepository.findAll();
+    public CursorPageDTO<Subject> getAllSubjects(String cursor, Integer limit) {
+        List<Subject> subjects = subjectRepository.findByIdGreaterThan(pagination.afterId(cursor), pagination.keyset(limit));
+        return pagination.page(subjects, limit, Subject::getId);
     }
 
     public Subject updateSubject(Long id, Subject subjectDetails) {
         Subject subject = subjectRepository.findById(id).orElseThrow(() -> new RuntimeException("Subject not found"));
         subject.setName(subjectDetails.getName());
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        timetableEngine.renameSubject(saved.getId(), saved.getName());
+        contentVersions.everythingChanged(); // results carry the subject name
+        return saved;
     }
 
     public void deleteSubject(Long id) {
-        subjectRepository.deleteById(id);
+        subjectRepository.findById(id).ifPresent(subject -> {
+            subjectRepository.delete(subject);
+            summaryReportService.subjectRemoved();
+        });
     }
 
     // Learning Material CRUD
     public LearningMaterial createLearningMaterial(LearningMaterial material) {
-        return learningMaterialRepository.save(material);
+        LearningMaterial saved = learningMaterialRepository.save(material);
+        learningMaterialCache.evict(saved.getClasse().getId());
+        contentVersions.classChanged(saved.getClasse().getId());
+        return saved;
     }
 
     public List<LearningMaterial> getAllLearningMaterials() {
@@ -174,30 +271,64 @@ public class AdminService {
     }
 
     public void deleteLearningMaterial(Long id) {
-        learningMaterialRepository.deleteById(id);
+        learningMaterialRepository.findById(id).ifPresent(material -> {
+            learningMaterialRepository.delete(material);
+            learningMaterialCache.evict(material.getClasse().getId());
+            contentVersions.classChanged(material.getClasse().getId());
+            if (material.getSha256() != null) {
+                AfterCommit.run(() -> materialBlobStore.release(material.getSha256()));
+            }
+        });
     }
 
-    // Timetable CRUD
+    // Timetable CRUD: every write is checked for overlaps with the class's and its teacher's other slots
     public Timetable createTimetableEntry(Timetable timetable) {
-        return timetableRepository.save(timetable);
+        resolveTimetableReferences(timetable, timetable);
+        return timetableEngine.place(toSlot(null, timetable), () -> timetableRepository.save(timetable));
     }
 
-    public List<Timetable> getAllTimetableEntries() {
-        return timetableRepository.findAll();
+    public CursorPageDTO<Timetable> getAllTimetableEntries(String cursor, Integer limit) {
+        List<Timetable> entries = timetableRepository.findByIdGreaterThan(pagination.afterId(cursor), pagination.keyset(limit));
+        return pagination.page(entries, limit, Timetable::getId);
     }
 
     public Timetable updateTimetableEntry(Long id, Timetable timetableDetails) {
         Timetable timetable = timetableRepository.findById(id).orElseThrow(() -> new RuntimeException("Timetable entry not found"));
-        timetable.setClasse(timetableDetails.getClasse());
-        timetable.setSubject(timetableDetails.getSubject());
+        resolveTimetableReferences(timetable, timetableDetails);
         timetable.setDayOfWeek(timetableDetails.getDayOfWeek());
         timetable.setStartTime(timetableDetails.getStartTime());
         timetable.setEndTime(timetableDetails.getEndTime());
-        return timetableRepository.save(timetable);
+        return timetableEngine.place(toSlot(id, timetable), () -> timetableRepository.save(timetable));
     }
 
     public void deleteTimetableEntry(Long id) {
-        timetableRepository.deleteById(id);
+        timetableEngine.delete(id, () -> timetableRepository.deleteById(id));
+    }
+
+    // Served from memory
+    public List<TimetableSlotDTO> getClassTimetable(Long classId) {
+        return timetableEngine.getClassWeek(List.of(classId));
+    }
+
+    // The request body only carries ids; the class teacher and subject name are needed for the conflict check
+    private void resolveTimetableReferences(Timetable timetable, Timetable details) {
+        if (details.getClasse() == null || details.getClasse().getId() == null) {
+            throw new RuntimeException("Class not found");
+        }
+        if (details.getSubject() == null || details.getSubject().getId() == null) {
+            throw new RuntimeException("Subject not found");
+        }
+        timetable.setClasse(classeRepository.findById(details.getClasse().getId())
+                .orElseThrow(() -> new RuntimeException("Class not found")));
+        timetable.setSubject(subjectRepository.findById(details.getSubject().getId())
+                .orElseThrow(() -> new RuntimeException("Subject not found")));
+    }
+
+    private TimetableSlotDTO toSlot(Long id, Timetable timetable) {
+        User teacher = timetable.getClasse().getTeacher();
+        return new TimetableSlotDTO(id, timetable.getClasse().getId(), teacher != null ? teacher.getId() : null,
+                timetable.getSubject().getId(), timetable.getSubject().getName(), timetable.getDayOfWeek(),
+                timetable.getStartTime(), timetable.getEndTime());
     }
 
     // Assignments
@@ -210,7 +341,9 @@ public class AdminService {
         }
 
         classe.setTeacher(teacher);
-        classeRepository.save(classe);
+        timetableEngine.assignTeacher(classId, teacherId, () -> classeRepository.save(classe));
+        learningMaterialCache.evict(classId);
+        contentVersions.classChanged(classId);
     }
 
     public void assignStudentToClass(Long studentId, Long classId) {
@@ -223,6 +356,9 @@ public class AdminService {
 
         classe.getStudents().add(student);
         classeRepository.save(classe);
+        examClashDetector.enroll(classId, studentId);
+        contentVersions.studentChanged(studentId);
+        contentVersions.classChanged(classId); // the roster is part of every classmate's class list
     }
 
     // Student Class Lookup
@@ -232,23 +368,23 @@ public class AdminService {
     }
 
     // Reports
+    // Served from memory; see SummaryReportService
     public ReportDTO getSummaryReport() {
-        ReportDTO report = new ReportDTO();
-        report.setTotalStudents(userRepository.countByRole(Role.STUDENT));
-        report.setTotalTeachers(userRepository.countByRole(Role.TEACHER));
-        report.setTotalAdmins(userRepository.countByRole(Role.ADMIN));
-        report.setTotalClasses(classeRepository.count());
-        report.setTotalExams(examRepository.count());
-        report.setTotalSubjects(subjectRepository.count());
-        return report;
+        return summaryReportService.getSummaryReport();
     }
 
     // Profile & Settings
     public User updateProfile(Long userId, Map<String, String> payload) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        boolean emailChanged = !user.getEmail().equals(payload.get("email"));
         user.setName(payload.get("name"));
         user.setEmail(payload.get("email"));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (emailChanged) {
+            // The token subject is the email, so tokens issued for the old address must stop working
+            securityVersionService.revoke(userId);
+        }
+        return saved;
     }
 
     public void changePassword(Long userId, String currentPassword, String newPassword) {
@@ -258,14 +394,19 @@ public class AdminService {
         }
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        securityVersionService.revoke(userId);
     }
 
     // Results Filtering
-    public List<ExamResult> filterResults(Long studentId) {
+    public CursorPageDTO<ExamResult> filterResults(Long studentId, String cursor, Integer limit) {
+        long afterId = pagination.afterId(cursor);
+        List<ExamResult> results;
         if (studentId != null) {
-            return examResultRepository.findByStudent_Id(studentId);
+            results = examResultRepository.findByStudent_IdAndIdGreaterThan(studentId, afterId, pagination.keyset(limit));
+        } else {
+            results = examResultRepository.findByIdGreaterThan(afterId, pagination.keyset(limit));
         }
-        return examResultRepository.findAll();
+        return pagination.page(results, limit, ExamResult::getId);
     }
 
     // DTO Converters
@@ -289,16 +430,23 @@ public class AdminService {
 
     private ClasseDTO convertToClasseDTO(Classe classe) {
         if (classe == null) return null;
-        ClasseDTO classeDTO = new ClasseDTO();
-        classeDTO.setId(classe.getId());
-        classeDTO.setName(classe.getName());
-        classeDTO.setGrade(classe.getGrade());
-        classeDTO.setTeacher(convertToUserDTO(classe.getTeacher()));
+        ClasseDTO classeDTO = convertToClasseSummaryDTO(classe);
         if (classe.getStudents() != null) {
             classeDTO.setStudents(classe.getStudents().stream().map(this::convertToUserDTO).collect(Collectors.toSet()));
         } else {
             classeDTO.setStudents(Collections.emptySet());
         }
+        classeDTO.setStudentCount(classeDTO.getStudents().size());
+        return classeDTO;
+    }
+
+    // Leaves the roster out so the lazy students collection is never touched
+    private ClasseDTO convertToClasseSummaryDTO(Classe classe) {
+        ClasseDTO classeDTO = new ClasseDTO();
+        classeDTO.setId(classe.getId());
+        classeDTO.setName(classe.getName());
+        classeDTO.setGrade(classe.getGrade());
+        classeDTO.setTeacher(convertToUserDTO(classe.getTeacher()));
         return classeDTO;
     }
 }
@@ -0,0 +1,92 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.AbsenteeDTO;
+import com.amfofana.school.dto.AttendanceDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
+import com.amfofana.school.utils.AfterCommit;
+import com.amfofana.school.utils.AttendanceBitmapIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Attendance analytics answered from AttendanceBitmapIndex rather than the attendance table. The index is built
+// from the table once at startup and then kept current by submitAttendance and student deletion.
+@Service
+public class AttendanceAnalyticsService {
+
+    private static final String LOAD_SQL = "SELECT class_id, student_id, date, status FROM attendance ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile AttendanceBitmapIndex index = new AttendanceBitmapIndex();
+
+    // Taking the transaction manager also makes the load wait for the JPA schema update
+    public AttendanceAnalyticsService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      @Value("${attendance.index.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Streamed inside a read-only transaction so PostgreSQL honours the fetch size
+    @PostConstruct
+    public void load() {
+        AttendanceBitmapIndex.Loader loader = new AttendanceBitmapIndex.Loader();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(LOAD_SQL, rs -> {
+            loader.add(rs.getLong(1), rs.getDate(3).toLocalDate(), rs.getLong(2), rs.getBoolean(4));
+        }));
+        index = loader.build();
+    }
+
+    public void recordAttendance(Long classId, LocalDate date, List<AttendanceDTO.AttendanceRecordDTO> records) {
+        Map<Long, Boolean> presence = new LinkedHashMap<>();
+        for (AttendanceDTO.AttendanceRecordDTO record : records) {
+            presence.put(record.getStudentId(), record.isPresent());
+        }
+        AfterCommit.run(() -> index.record(classId, date, presence));
+    }
+
+    public void removeStudent(Long studentId) {
+        AfterCommit.run(() -> index.removeStudent(studentId));
+    }
+
+    public AttendanceRateDTO getStudentRate(Long studentId, Long classId, LocalDate from, LocalDate to) {
+        requireRange(from, to);
+        return index.studentRate(studentId, classId, from, to);
+    }
+
+    public AttendanceRateDTO getClassRate(Long classId, LocalDate from, LocalDate to) {
+        requireRange(from, to);
+        return index.classRate(classId, from, to);
+    }
+
+    public List<AttendanceDayDTO> getDailyPresence(Long classId, LocalDate from, LocalDate to) {
+        requireRange(from, to);
+        return index.dailyPresence(classId, from, to);
+    }
+
+    public List<AbsenteeDTO> getChronicAbsentees(Long classId, LocalDate from, LocalDate to, double threshold) {
+        requireRange(from, to);
+        if (threshold < 0 || threshold > 1) {
+            throw new RuntimeException("Threshold must be between 0 and 1");
+        }
+        return index.chronicAbsentees(classId, from, to, threshold);
+    }
+
+    private static void requireRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("Invalid date range");
+        }
+    }
+}
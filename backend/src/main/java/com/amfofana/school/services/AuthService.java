@@ -1,5 +1,6 @@
 package com.amfofana.school.services;
 
+import com.amfofana.school.config.AuthenticatedUser;
 import com.amfofana.school.dto.JwtResponseDTO;
 import com.amfofana.school.dto.LoginRequestDTO;
 import com.amfofana.school.dto.RegisterRequestDTO;
@@ -8,36 +9,41 @@ import com.amfofana.school.entities.Role;
 import com.amfofana.school.entities.User;
 import com.amfofana.school.repositories.UserRepository;
 import com.amfofana.school.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final PasswordVerificationService passwordVerificationService;
     private final JwtUtil jwtUtil;
+    private final SecurityVersionService securityVersionService;
+    private final MeterRegistry meterRegistry;
+    private final SummaryReportService summaryReportService;
 
     @Value("${jwt.refresh-token-expiration}")
     private int refreshTokenExpiration;
 
     public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                       AuthenticationManager authenticationManager, UserDetailsServiceImpl userDetailsService,
-                       JwtUtil jwtUtil) {
+                       PasswordVerificationService passwordVerificationService, JwtUtil jwtUtil,
+                       SecurityVersionService securityVersionService, MeterRegistry meterRegistry,
+                       SummaryReportService summaryReportService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
+        this.passwordVerificationService = passwordVerificationService;
         this.jwtUtil = jwtUtil;
+        this.securityVersionService = securityVersionService;
+        this.meterRegistry = meterRegistry;
+        this.summaryReportService = summaryReportService;
     }
 
     public UserDTO registerUser(RegisterRequestDTO registerRequest) {
@@ -48,26 +54,40 @@ public class AuthService {
         newUser.setRole(Role.STUDENT);
 
         User savedUser = userRepository.save(newUser);
+        summaryReportService.userAdded(Role.STUDENT);
         return convertToUserDTO(savedUser);
     }
 
+    // One user load, one BCrypt check on the bounded verification pool, role taken from the loaded user
     public JwtResponseDTO loginUser(LoginRequestDTO loginRequest) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            User user = userRepository.findByEmail(loginRequest.getEmail()).orElse(null);
+            boolean matches = passwordVerificationService.matches(loginRequest.getPassword(),
+                    user != null ? user.getPassword() : null);
+            if (!matches) {
+                throw new BadCredentialsException("Bad credentials");
+            }
 
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getEmail());
-        final String accessToken = jwtUtil.generateToken(userDetails);
-        final String refreshToken = jwtUtil.generateRefreshToken(userDetails, refreshTokenExpiration);
-        return new JwtResponseDTO(accessToken, refreshToken);
+            AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), null, user.getRole());
+            final String accessToken = jwtUtil.generateToken(principal, Map.of(
+                    JwtUtil.USER_ID_CLAIM, user.getId(),
+                    JwtUtil.SECURITY_VERSION_CLAIM, securityVersionService.currentVersion(user.getId())));
+            final String refreshToken = jwtUtil.generateRefreshToken(principal, refreshTokenExpiration);
+            outcome = "success";
+            return new JwtResponseDTO(accessToken, refreshToken, user.getRole().name());
+        } catch (RejectedExecutionException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("auth.login", "outcome", outcome));
+        }
     }
 
-    public String getRoleFromToken(String token) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(jwtUtil.extractUsername(token));
-        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
-        if (authorities != null && !authorities.isEmpty()) {
-            return authorities.iterator().next().getAuthority().replace("ROLE_", "");
-        }
-        return null;
+    public UserDTO getCurrentUser(Long userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        return convertToUserDTO(user);
     }
 
     public UserDTO convertToUserDTO(User user) {
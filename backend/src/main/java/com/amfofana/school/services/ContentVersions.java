@@ -0,0 +1,123 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.utils.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version counters behind the ETags of the student read endpoints. A student's tag is built from their own
+// counter and the sum of their classes' counters, so a revalidation is answered without reading their data.
+// Counters only grow and are bumped after commit, so a tag is never newer than the data served with it. Any
+// change to a student's set of classes must bump the student, which keeps the sum from repeating an old tag.
+// Materials are served from LearningMaterialCache, which embeds the class and its teacher, so a class bump
+// evicts the class's materials first; otherwise the new tag would go out with the cached copy.
+@Service
+public class ContentVersions {
+
+    private final ClasseRepository classeRepository;
+    private final LearningMaterialCache learningMaterialCache;
+
+    // Counters live in memory; the startup time keeps tags from before a restart from matching again
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final Map<Long, Long> studentVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> classVersions = new ConcurrentHashMap<>();
+    private final Cache<Long, List<Long>> classIdsByStudent;
+
+    private final Counter notModified;
+    private final Counter modified;
+
+    public ContentVersions(ClasseRepository classeRepository, LearningMaterialCache learningMaterialCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${etags.student-classes.maximum-size:50000}") long maximumSize) {
+        this.classeRepository = classeRepository;
+        this.learningMaterialCache = learningMaterialCache;
+        this.classIdsByStudent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, classIdsByStudent, "etags.student-classes");
+
+        Counter notModified = meterRegistry.counter("etags.requests", "outcome", "not_modified");
+        Counter modified = meterRegistry.counter("etags.requests", "outcome", "modified");
+        this.notModified = notModified;
+        this.modified = modified;
+        Gauge.builder("etags.not-modified.ratio", () -> notModifiedRatio(notModified, modified))
+                .description("Share of conditional student reads answered with 304 Not Modified")
+                .register(meterRegistry);
+    }
+
+    public String studentTag(Long studentId) {
+        long classes = 0;
+        for (Long classId : classIdsByStudent.get(studentId, classeRepository::findIdsByStudentId)) {
+            classes += classVersions.getOrDefault(classId, 0L);
+        }
+        return "W/\"" + epoch + "." + global.get() + "." + studentVersions.getOrDefault(studentId, 0L) + "."
+                + classes + "\"";
+    }
+
+    // Sets 304 and the ETag on the response when the client's copy is current; counted either way
+    public boolean checkNotModified(WebRequest request, String etag) {
+        boolean current = request.checkNotModified(etag);
+        (current ? notModified : modified).increment();
+        return current;
+    }
+
+    // Also for enrollment changes: the student's class list is reloaded on the next read
+    public void studentChanged(Long studentId) {
+        if (studentId != null) {
+            AfterCommit.run(() -> {
+                classIdsByStudent.invalidate(studentId);
+                studentVersions.merge(studentId, 1L, Long::sum);
+            });
+        }
+    }
+
+    public void studentsChanged(Collection<Long> studentIds) {
+        studentIds.forEach(this::studentChanged);
+    }
+
+    public void classChanged(Long classId) {
+        if (classId != null) {
+            AfterCommit.run(() -> {
+                learningMaterialCache.evict(classId);
+                classVersions.merge(classId, 1L, Long::sum);
+            });
+        }
+    }
+
+    public void classesChanged(Collection<Long> classIds) {
+        classIds.forEach(this::classChanged);
+    }
+
+    // Names and contact details are embedded in the rosters and attendance of every class the user is part of
+    public void userChanged(Long userId) {
+        studentChanged(userId);
+        classesChanged(classeRepository.findIdsByTeacherId(userId));
+        classesChanged(classeRepository.findIdsByStudentId(userId));
+    }
+
+    // For writes that reach across classes, such as renaming a subject or regrading a term
+    public void everythingChanged() {
+        AfterCommit.run(global::incrementAndGet);
+    }
+
+    private static double notModifiedRatio(Counter notModified, Counter modified) {
+        double hits = notModified.count();
+        double total = hits + modified.count();
+        return total == 0 ? 0 : hits / total;
+    }
+}
@@ -0,0 +1,97 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.repositories.ExamRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+// Exam calendar entries per class and week (weeks start on Monday). Misses for any set of classes and weeks are
+// loaded with one range query on (class_id, date); exam writes evict the class weeks they touch.
+@Service
+public class ExamCalendarCache {
+
+    private final ExamRepository examRepository;
+    private final Cache<ClassWeek, List<ExamCalendarEntryDTO>> entries;
+
+    public ExamCalendarCache(ExamRepository examRepository, MeterRegistry meterRegistry,
+                             @Value("${exams.calendar-cache.maximum-size:50000}") long maximumSize,
+                             @Value("${exams.calendar-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.examRepository = examRepository;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "exams.calendar");
+    }
+
+    public List<ExamCalendarEntryDTO> findByClassIds(Collection<Long> classIds, LocalDate from, LocalDate to) {
+        if (classIds.isEmpty() || to.isBefore(from)) {
+            return List.of();
+        }
+        List<ClassWeek> keys = new ArrayList<>();
+        for (Long classId : new LinkedHashSet<>(classIds)) {
+            for (LocalDate week = weekOf(from); !week.isAfter(to); week = week.plusWeeks(1)) {
+                keys.add(new ClassWeek(classId, week));
+            }
+        }
+        Map<ClassWeek, List<ExamCalendarEntryDTO>> weeks = entries.getAll(keys, this::load);
+        List<ExamCalendarEntryDTO> calendar = new ArrayList<>();
+        for (ClassWeek key : keys) {
+            for (ExamCalendarEntryDTO entry : weeks.get(key)) {
+                if (!entry.getDate().isBefore(from) && !entry.getDate().isAfter(to)) {
+                    calendar.add(entry);
+                }
+            }
+        }
+        calendar.sort(Comparator.comparing(ExamCalendarEntryDTO::getDate)
+                .thenComparing(ExamCalendarEntryDTO::getStartTime, Comparator.nullsLast(Comparator.naturalOrder())));
+        return calendar;
+    }
+
+    public void evict(Long classId, LocalDate date) {
+        if (classId != null && date != null) {
+            entries.invalidate(new ClassWeek(classId, weekOf(date)));
+        }
+    }
+
+    // Loads the whole class x week rectangle around the misses; the extra weeks are complete, so they are cached too
+    private Map<ClassWeek, List<ExamCalendarEntryDTO>> load(Set<? extends ClassWeek> missing) {
+        Set<Long> classIds = new HashSet<>();
+        LocalDate firstWeek = null;
+        LocalDate lastWeek = null;
+        for (ClassWeek key : missing) {
+            classIds.add(key.classId());
+            firstWeek = firstWeek == null || key.week().isBefore(firstWeek) ? key.week() : firstWeek;
+            lastWeek = lastWeek == null || key.week().isAfter(lastWeek) ? key.week() : lastWeek;
+        }
+        Map<ClassWeek, List<ExamCalendarEntryDTO>> loaded = new HashMap<>();
+        for (Long classId : classIds) {
+            for (LocalDate week = firstWeek; !week.isAfter(lastWeek); week = week.plusWeeks(1)) {
+                loaded.put(new ClassWeek(classId, week), new ArrayList<>());
+            }
+        }
+        for (ExamCalendarEntryDTO entry : examRepository.findCalendarEntries(classIds, firstWeek, lastWeek.plusDays(6))) {
+            loaded.get(new ClassWeek(entry.getClassId(), weekOf(entry.getDate()))).add(entry);
+        }
+        loaded.replaceAll((key, weekEntries) -> List.copyOf(weekEntries));
+        return loaded;
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private record ClassWeek(Long classId, LocalDate week) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.ExamClashDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.entities.Exam;
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.utils.IntervalTree;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Finds the students of an exam's class who are already expected elsewhere at that time, through any of their other
+// enrollments: another exam that day, or a weekly lesson of another class. Enrollments are held as one student bitmap
+// per class and exams as an interval tree per date; lessons come from the TimetableEngine.
+// A class's own lessons are not clashes: exams are normally sat in the class's own lesson time.
+@Service
+public class ExamClashDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamClashDetector.class);
+
+    private static final int MAX_CLASHES_IN_MESSAGE = 5;
+
+    private final ClasseRepository classeRepository;
+    private final ExamRepository examRepository;
+    private final TimetableEngine timetableEngine;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> studentsByClass = new HashMap<>();
+    private final Map<Long, ExamCalendarEntryDTO> exams = new HashMap<>();
+    private final Map<LocalDate, IntervalTree<ExamCalendarEntryDTO>> examsByDate = new HashMap<>();
+
+    public ExamClashDetector(ClasseRepository classeRepository, ExamRepository examRepository,
+                             TimetableEngine timetableEngine) {
+        this.classeRepository = classeRepository;
+        this.examRepository = examRepository;
+        this.timetableEngine = timetableEngine;
+    }
+
+    // Exams saved before times were validated may lack a time or end before they start; they cannot clash and
+    // are left out until they are corrected
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            for (ClasseRepository.Enrollment enrollment : classeRepository.findAllEnrollments()) {
+                studentsOf(enrollment.getClassId()).add(Math.toIntExact(enrollment.getStudentId()));
+            }
+            studentsByClass.values().forEach(RoaringBitmap::runOptimize);
+            for (ExamCalendarEntryDTO exam : examRepository.findAllCalendarEntries()) {
+                if (exam.getDate() != null && exam.getStartTime() != null && exam.getEndTime() != null
+                        && exam.getStartTime().isBefore(exam.getEndTime())) {
+                    addExam(exam);
+                } else {
+                    log.warn("Skipping exam {} in clash detection: date {}, start {}, end {}", exam.getId(),
+                            exam.getDate(), exam.getStartTime(), exam.getEndTime());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // examId is the exam being moved, so it never clashes with itself; null for a new exam
+    public List<ExamClashDTO> findClashes(Long examId, Long classId, LocalDate date, LocalTime start, LocalTime end) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap students = studentsByClass.get(classId);
+            if (students == null || students.isEmpty()) {
+                return List.of();
+            }
+            List<ExamClashDTO> clashes = new ArrayList<>();
+            IntervalTree<ExamCalendarEntryDTO> sameDay = examsByDate.get(date);
+            if (sameDay != null) {
+                for (ExamCalendarEntryDTO other : sameDay.findAllOverlaps(start.toSecondOfDay(), end.toSecondOfDay())) {
+                    RoaringBitmap shared = shared(students, other.getClassId());
+                    if (!other.getId().equals(examId) && !shared.isEmpty()) {
+                        clashes.add(new ExamClashDTO(ExamClashDTO.Kind.EXAM, other.getId(), other.getClassId(),
+                                other.getName(), other.getDate(), other.getDate().getDayOfWeek(),
+                                other.getStartTime(), other.getEndTime(), ids(shared)));
+                    }
+                }
+            }
+            for (Map.Entry<Long, RoaringBitmap> other : studentsByClass.entrySet()) {
+                if (other.getKey().equals(classId) || !RoaringBitmap.intersects(students, other.getValue())) {
+                    continue;
+                }
+                List<TimetableSlotDTO> lessons = timetableEngine.findOverlapping(other.getKey(), date.getDayOfWeek(),
+                        start, end);
+                if (lessons.isEmpty()) {
+                    continue;
+                }
+                List<Long> shared = ids(RoaringBitmap.and(students, other.getValue()));
+                for (TimetableSlotDTO lesson : lessons) {
+                    clashes.add(new ExamClashDTO(ExamClashDTO.Kind.LESSON, lesson.getId(), lesson.getClassId(),
+                            lesson.getSubject(), null, lesson.getDayOfWeek(), lesson.getStartTime(),
+                            lesson.getEndTime(), shared));
+                }
+            }
+            return clashes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Refuses the exam if it clashes; otherwise runs the write while still holding the lock, so two clashing exams
+    // cannot both pass. exam.id is null for a new exam and is taken from the saved row.
+    public Exam place(ExamCalendarEntryDTO exam, Supplier<Exam> write) {
+        lock.writeLock().lock();
+        try {
+            List<ExamClashDTO> clashes = findClashes(exam.getId(), exam.getClassId(), exam.getDate(),
+                    exam.getStartTime(), exam.getEndTime());
+            if (!clashes.isEmpty()) {
+                throw new RuntimeException(describe(clashes));
+            }
+            Exam saved = write.get();
+            removeExam(saved.getId());
+            exam.setId(saved.getId());
+            addExam(exam);
+            return saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeExam(Long examId) {
+        lock.writeLock().lock();
+        try {
+            ExamCalendarEntryDTO exam = exams.remove(examId);
+            if (exam != null) {
+                IntervalTree<ExamCalendarEntryDTO> tree = examsByDate.get(exam.getDate());
+                if (tree.remove(exam.getStartTime().toSecondOfDay(), examId) && tree.isEmpty()) {
+                    examsByDate.remove(exam.getDate());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void enroll(Long classId, Long studentId) {
+        lock.writeLock().lock();
+        try {
+            studentsOf(classId).add(Math.toIntExact(studentId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeStudent(Long studentId) {
+        lock.writeLock().lock();
+        try {
+            studentsByClass.values().forEach(students -> students.remove(Math.toIntExact(studentId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeClass(Long classId) {
+        lock.writeLock().lock();
+        try {
+            studentsByClass.remove(classId);
+            exams.values().stream()
+                    .filter(exam -> exam.getClassId().equals(classId))
+                    .map(ExamCalendarEntryDTO::getId)
+                    .toList()
+                    .forEach(this::removeExam);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addExam(ExamCalendarEntryDTO exam) {
+        exams.put(exam.getId(), exam);
+        examsByDate.computeIfAbsent(exam.getDate(), date -> new IntervalTree<>())
+                .insert(exam.getStartTime().toSecondOfDay(), exam.getEndTime().toSecondOfDay(), exam.getId(), exam);
+    }
+
+    private RoaringBitmap studentsOf(Long classId) {
+        return studentsByClass.computeIfAbsent(classId, id -> new RoaringBitmap());
+    }
+
+    private RoaringBitmap shared(RoaringBitmap students, Long otherClassId) {
+        RoaringBitmap other = studentsByClass.get(otherClassId);
+        return other != null ? RoaringBitmap.and(students, other) : new RoaringBitmap();
+    }
+
+    private static List<Long> ids(RoaringBitmap students) {
+        List<Long> ids = new ArrayList<>(students.getCardinality());
+        students.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+
+    private static String describe(List<ExamClashDTO> clashes) {
+        Set<Long> students = new HashSet<>();
+        List<String> slots = new ArrayList<>();
+        for (ExamClashDTO clash : clashes) {
+            students.addAll(clash.getStudentIds());
+            if (slots.size() < MAX_CLASHES_IN_MESSAGE) {
+                slots.add(clash.getKind().name().toLowerCase(Locale.ROOT) + " " + clash.getId() + " ("
+                        + clash.getName() + ", class " + clash.getClassId() + ") " + clash.getDayOfWeek() + " "
+                        + clash.getStartTime() + "-" + clash.getEndTime());
+            }
+        }
+        String more = clashes.size() > slots.size() ? " and " + (clashes.size() - slots.size()) + " more" : "";
+        return "Exam clashes for " + students.size() + " students: " + String.join(", ", slots) + more;
+    }
+}
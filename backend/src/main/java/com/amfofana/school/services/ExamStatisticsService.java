@@ -0,0 +1,111 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.entities.ExamResult;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.ExamResultRepository;
+import com.amfofana.school.utils.AfterCommit;
+import com.amfofana.school.utils.MarkStatistics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+// Marks of each exam are cached as primitive arrays together with their statistics. Class and subject figures
+// are recomputed from the cached arrays of their exams; saving or submitting results evicts that exam only.
+// Only submitted results count: drafts are still being entered and get their banded grade on submit.
+@Service
+public class ExamStatisticsService {
+
+    private final ExamRepository examRepository;
+    private final ExamResultRepository examResultRepository;
+    private final Cache<Long, ExamMarks> exams;
+
+    public ExamStatisticsService(ExamRepository examRepository, ExamResultRepository examResultRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${exams.statistics-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${exams.statistics-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.examRepository = examRepository;
+        this.examResultRepository = examResultRepository;
+        this.exams = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exams, "exams.statistics");
+    }
+
+    // An exam without results reports a count of zero
+    public ExamStatisticsDTO getExamStatistics(Long examId) {
+        return exams.get(examId, id -> load(Set.of(id)).get(id)).statistics();
+    }
+
+    // subjectId narrows the class to one subject when given
+    public ExamStatisticsDTO getClassStatistics(Long classId, Long subjectId) {
+        return combine(examRepository.findIds(classId, subjectId));
+    }
+
+    public ExamStatisticsDTO getSubjectStatistics(Long subjectId) {
+        return combine(examRepository.findIds(null, subjectId));
+    }
+
+    // Results are only visible to other transactions once committed, so the exam is evicted then
+    public void evict(Collection<Long> examIds) {
+        Set<Long> ids = new HashSet<>(examIds);
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            AfterCommit.run(() -> exams.invalidateAll(ids));
+        }
+    }
+
+    private ExamStatisticsDTO combine(List<Long> examIds) {
+        if (examIds.size() == 1) {
+            return getExamStatistics(examIds.get(0));
+        }
+        Collection<ExamMarks> marksByExam = exams.getAll(examIds, this::load).values();
+        int total = 0;
+        for (ExamMarks examMarks : marksByExam) {
+            total += examMarks.marks().length;
+        }
+        double[] marks = new double[total];
+        int[] grades = new int[total];
+        int offset = 0;
+        for (ExamMarks examMarks : marksByExam) {
+            System.arraycopy(examMarks.marks(), 0, marks, offset, examMarks.marks().length);
+            System.arraycopy(examMarks.grades(), 0, grades, offset, examMarks.grades().length);
+            offset += examMarks.marks().length;
+        }
+        return MarkStatistics.compute(marks, grades);
+    }
+
+    // One query for all missing exams; exams without results are cached as empty
+    private Map<Long, ExamMarks> load(Set<? extends Long> examIds) {
+        Map<Long, List<ExamResultRepository.MarkRow>> rowsByExam = new HashMap<>();
+        for (Long examId : examIds) {
+            rowsByExam.put(examId, new ArrayList<>());
+        }
+        for (ExamResultRepository.MarkRow row :
+                examResultRepository.findMarksByExamIdIn(rowsByExam.keySet(), ExamResult.Status.SUBMITTED)) {
+            rowsByExam.get(row.getExamId()).add(row);
+        }
+        Map<Long, ExamMarks> loaded = new HashMap<>();
+        rowsByExam.forEach((examId, rows) -> {
+            double[] marks = new double[rows.size()];
+            int[] grades = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                marks[i] = rows.get(i).getMarks();
+                grades[i] = rows.get(i).getGrade() != null ? rows.get(i).getGrade().ordinal() : MarkStatistics.UNGRADED;
+            }
+            loaded.put(examId, new ExamMarks(marks, grades, MarkStatistics.compute(marks, grades)));
+        });
+        return loaded;
+    }
+
+    private record ExamMarks(double[] marks, int[] grades, ExamStatisticsDTO statistics) {
+    }
+}
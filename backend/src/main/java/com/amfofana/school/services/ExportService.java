@@ -0,0 +1,66 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.utils.ExportRowWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// Streams exports from a forward-only cursor as flat rows. PostgreSQL only honours the fetch size inside a
+// transaction, so each export runs in a read-only one and never holds more than one fetch in memory.
+@Service
+public class ExportService {
+
+    private static final List<String> RESULT_COLUMNS = List.of("resultId", "examId", "examName", "examDate",
+            "classId", "className", "subject", "studentId", "studentNumber", "studentName", "marks", "grade", "status");
+
+    private static final String RESULTS_SQL = """
+            SELECT r.id, e.id, e.name, e.date, c.id, c.name, s.name, u.id, u.user_id, u.name, r.marks, r.grade, r.status
+            FROM exam_results r
+            JOIN exams e ON e.id = r.exam_id
+            JOIN classes c ON c.id = e.class_id
+            JOIN subjects s ON s.id = e.subject_id
+            JOIN users u ON u.id = r.student_id
+            ORDER BY r.id
+            """;
+
+    private static final List<String> ATTENDANCE_COLUMNS = List.of("attendanceId", "date", "classId", "className",
+            "studentId", "studentNumber", "studentName", "present");
+
+    private static final String ATTENDANCE_SQL = """
+            SELECT a.id, a.date, c.id, c.name, u.id, u.user_id, u.name, a.status
+            FROM attendance a
+            JOIN classes c ON c.id = a.class_id
+            JOIN users u ON u.id = a.student_id
+            ORDER BY a.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportService(DataSource dataSource, @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportResults(ExportRowWriter.Format format, OutputStream out) throws IOException {
+        return export(RESULTS_SQL, RESULT_COLUMNS, format, out);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportAttendance(ExportRowWriter.Format format, OutputStream out) throws IOException {
+        return export(ATTENDANCE_SQL, ATTENDANCE_COLUMNS, format, out);
+    }
+
+    private long export(String sql, List<String> columns, ExportRowWriter.Format format, OutputStream out) throws IOException {
+        try (ExportRowWriter writer = new ExportRowWriter(format, columns, out)) {
+            jdbcTemplate.query(sql, writer);
+            return writer.getRowCount();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.config.GradingProperties;
+import com.amfofana.school.utils.GradeBands;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Resolves the banding policy of a subject; thresholds are validated once, at startup
+@Service
+public class GradingPolicy {
+
+    private final GradeBands schoolBands;
+    private final Map<String, GradeBands> subjectBands = new HashMap<>();
+
+    public GradingPolicy(GradingProperties properties) {
+        this.schoolBands = new GradeBands(properties.getBands());
+        properties.getSubjects().forEach((subject, thresholds) ->
+                subjectBands.put(subject.toLowerCase(Locale.ROOT), new GradeBands(thresholds)));
+    }
+
+    public GradeBands schoolBands() {
+        return schoolBands;
+    }
+
+    // Keyed by lower-cased subject name
+    public Map<String, GradeBands> subjectBands() {
+        return Collections.unmodifiableMap(subjectBands);
+    }
+
+    public GradeBands bandsFor(String subjectName) {
+        if (subjectName == null) {
+            return schoolBands;
+        }
+        return subjectBands.getOrDefault(subjectName.toLowerCase(Locale.ROOT), schoolBands);
+    }
+}
@@ -0,0 +1,74 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.config.GradingProperties;
+import com.amfofana.school.dto.RegradeReportDTO;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.ExamResultRepository;
+import com.amfofana.school.utils.GradeBands;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+// Term-end job: applies the grading policy to every exam of a term. Batches being submitted are graded by
+// TeacherService.submitResults in the same statement that submits them.
+@Service
+public class GradingService {
+
+    private final ExamRepository examRepository;
+    private final ExamResultRepository examResultRepository;
+    private final GradingPolicy gradingPolicy;
+    private final ExamStatisticsService examStatisticsService;
+    private final ContentVersions contentVersions;
+    private final ForkJoinPool termJobPool;
+
+    public GradingService(ExamRepository examRepository, ExamResultRepository examResultRepository,
+                          GradingPolicy gradingPolicy, ExamStatisticsService examStatisticsService,
+                          GradingProperties properties, ContentVersions contentVersions) {
+        this.examRepository = examRepository;
+        this.examResultRepository = examResultRepository;
+        this.gradingPolicy = gradingPolicy;
+        this.examStatisticsService = examStatisticsService;
+        this.contentVersions = contentVersions;
+        int parallelism = properties.getTermJobParallelism() > 0
+                ? properties.getTermJobParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.termJobPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("term-regrade-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+    }
+
+    // Regrades every exam dated within the term, one exam per fork-join task and one UPDATE per exam.
+    // Each exam commits on its own; rerunning the job is safe, since unchanged rows are skipped.
+    public RegradeReportDTO regradeTerm(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new RuntimeException("Invalid date range");
+        }
+        List<ExamRepository.ExamSubject> exams = examRepository.findSubjectsByDateBetween(from, to);
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(exams.size());
+        for (ExamRepository.ExamSubject exam : exams) {
+            GradeBands bands = gradingPolicy.bandsFor(exam.getSubjectName());
+            tasks.add(termJobPool.submit(() -> examResultRepository.applyGradeBandsToExam(exam.getId(), bands)));
+        }
+        int regraded = 0;
+        for (ForkJoinTask<Integer> task : tasks) {
+            regraded += task.join();
+        }
+        examStatisticsService.evict(exams.stream().map(ExamRepository.ExamSubject::getId).toList());
+        if (regraded > 0) {
+            contentVersions.everythingChanged();
+        }
+        return new RegradeReportDTO(exams.size(), regraded);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        termJobPool.shutdown();
+    }
+}
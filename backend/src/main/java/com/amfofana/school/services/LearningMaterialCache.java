@@ -0,0 +1,72 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.entities.LearningMaterial;
+import com.amfofana.school.repositories.LearningMaterialRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Material lists per class. Misses for any number of classes are loaded with one IN query; every write that
+// touches a class evicts that class. A load that overlaps an eviction is served once and then dropped, so an
+// eviction after commit is never undone by a load that read the old rows.
+@Service
+public class LearningMaterialCache {
+
+    private final LearningMaterialRepository learningMaterialRepository;
+    private final Cache<Long, List<LearningMaterial>> materialsByClass;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LearningMaterialCache(LearningMaterialRepository learningMaterialRepository, MeterRegistry meterRegistry,
+                                 @Value("${materials.cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${materials.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.learningMaterialRepository = learningMaterialRepository;
+        this.materialsByClass = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, materialsByClass, "materials.by-class");
+    }
+
+    public List<LearningMaterial> findByClassIds(Collection<Long> classIds) {
+        if (classIds.isEmpty()) {
+            return List.of();
+        }
+        long evictionsBefore = evictions.get();
+        Map<Long, List<LearningMaterial>> lists = materialsByClass.getAll(classIds, this::load);
+        if (evictions.get() != evictionsBefore) {
+            materialsByClass.invalidateAll(classIds);
+        }
+        List<LearningMaterial> materials = new ArrayList<>();
+        for (Long classId : new LinkedHashSet<>(classIds)) {
+            materials.addAll(lists.get(classId));
+        }
+        return materials;
+    }
+
+    public void evict(Long classId) {
+        if (classId != null) {
+            evictions.incrementAndGet();
+            materialsByClass.invalidate(classId);
+        }
+    }
+
+    private Map<Long, List<LearningMaterial>> load(Set<? extends Long> classIds) {
+        Map<Long, List<LearningMaterial>> loaded = new HashMap<>();
+        for (Long classId : classIds) {
+            loaded.put(classId, new ArrayList<>());
+        }
+        for (LearningMaterial material : learningMaterialRepository.findByClasse_IdIn(loaded.keySet())) {
+            loaded.get(material.getClasse().getId()).add(material);
+        }
+        loaded.replaceAll((classId, materials) -> List.copyOf(materials));
+        return loaded;
+    }
+}
@@ -0,0 +1,195 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.repositories.LearningMaterialRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Content-addressed store for material files: each distinct file is kept once, under its SHA-256, however many
+// materials point at it. A blob's reference count is the number of learning_materials rows naming it, so it cannot
+// drift from the rows; the file is deleted once that count drops to zero. Moving a blob in together with saving its
+// row, and counting before a delete, run under the same per-hash lock, so a blob is never collected under a new row.
+@Service
+public class MaterialBlobStore {
+
+    public record Blob(String sha256, long size) {
+    }
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMP_PREFIX = "upload-";
+    private static final Duration TEMP_FILE_MAX_AGE = Duration.ofDays(1);
+    private static final int LOCK_STRIPES = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final LearningMaterialRepository learningMaterialRepository;
+    private final Path blobs;
+    private final Path incoming;
+    private final DataSize maxFileSize;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public MaterialBlobStore(LearningMaterialRepository learningMaterialRepository,
+                             @Value("${materials.storage.root:data/materials}") String root,
+                             @Value("${materials.storage.max-file-size:2GB}") DataSize maxFileSize) {
+        this.learningMaterialRepository = learningMaterialRepository;
+        Path rootPath = Paths.get(root).toAbsolutePath().normalize();
+        this.blobs = rootPath.resolve("blobs");
+        this.incoming = rootPath.resolve("incoming"); // same file system as blobs, so moves in are atomic renames
+        this.maxFileSize = maxFileSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(blobs);
+        Files.createDirectories(incoming);
+    }
+
+    // Hashes the content while writing it to a temp file, then moves it in unless the blob is already stored.
+    // save links the blob to its row and runs before the lock is released.
+    public <T> T store(InputStream content, Function<Blob, T> save) throws IOException {
+        Path temp = Files.createTempFile(incoming, TEMP_PREFIX, ".part");
+        try {
+            MessageDigest digest = sha256Digest();
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int read; (read = content.read(buffer)) != -1; ) {
+                    size += read;
+                    if (size > maxFileSize.toBytes()) {
+                        throw new RuntimeException("File is larger than " + maxFileSize.toMegabytes() + " MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            return moveIn(temp, new Blob(HexFormat.of().formatHex(digest.digest()), size), save);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // For a file assembled in the incoming directory by the caller. It is hashed in one read and moved in; if the blob
+    // is already stored the file is left where it is, for the caller to delete.
+    public <T> T store(Path file, Function<Blob, T> save) throws IOException {
+        if (!incoming.equals(file.getParent())) {
+            throw new IllegalArgumentException("Only files in the incoming directory can be stored");
+        }
+        MessageDigest digest = sha256Digest();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                size += read;
+                digest.update(buffer, 0, read);
+            }
+        }
+        return moveIn(file, new Blob(HexFormat.of().formatHex(digest.digest()), size), save);
+    }
+
+    // The prefix must not be the one used for this store's own temp files, which are swept after a day
+    public Path createIncomingFile(String prefix) throws IOException {
+        return Files.createTempFile(incoming, prefix, ".part");
+    }
+
+    public long usableSpace() throws IOException {
+        return Files.getFileStore(incoming).getUsableSpace();
+    }
+
+    public long maxFileSize() {
+        return maxFileSize.toBytes();
+    }
+
+    public Path path(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            throw new RuntimeException("Invalid blob id");
+        }
+        return blobs.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    // Called once a row naming the blob is gone; deletes the file if no other row names it
+    public void release(String sha256) {
+        synchronized (lockFor(sha256)) {
+            if (learningMaterialRepository.countBySha256(sha256) == 0) {
+                try {
+                    Files.deleteIfExists(path(sha256));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    // Catches blobs orphaned by a crash between a row delete and its release, and temp files of dead uploads
+    @Scheduled(initialDelayString = "${materials.storage.gc-interval:PT6H}",
+            fixedDelayString = "${materials.storage.gc-interval:PT6H}")
+    public void collectGarbage() throws IOException {
+        Set<String> referenced = learningMaterialRepository.findAllSha256();
+        try (Stream<Path> files = Files.walk(blobs, 2)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> SHA256.matcher(name).matches() && !referenced.contains(name))
+                    .forEach(this::release);
+        }
+        deleteIncomingFiles(TEMP_PREFIX, Instant.now().minus(TEMP_FILE_MAX_AGE));
+    }
+
+    // Deletes incoming files with the prefix last modified before the cutoff
+    public void deleteIncomingFiles(String prefix, Instant cutoff) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(incoming, prefix + "*")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private <T> T moveIn(Path temp, Blob blob, Function<Blob, T> save) throws IOException {
+        Path target = path(blob.sha256());
+        synchronized (lockFor(blob.sha256())) {
+            boolean added = Files.notExists(target);
+            if (added) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            try {
+                return save.apply(blob);
+            } catch (RuntimeException e) {
+                if (added) {
+                    Files.deleteIfExists(target);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.UploadRequestDTO;
+import com.amfofana.school.dto.UploadSessionDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.LearningMaterial;
+import com.amfofana.school.repositories.ClasseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resumable uploads: a session preallocates the whole file in the blob store's incoming directory, chunks are written
+// at their own offsets in any order (and may be re-sent), and commit moves the finished file into MaterialBlobStore.
+// Sessions live in memory; a restart drops them along with their partial files.
+@Service
+public class MaterialUploadService {
+
+    private static final String SESSION_PREFIX = "session-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ClasseRepository classeRepository;
+    private final TeacherService teacherService;
+    private final MaterialBlobStore materialBlobStore;
+    private final int chunkSize;
+    private final Duration sessionTimeout;
+    private final int maxSessionsPerTeacher;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public MaterialUploadService(ClasseRepository classeRepository, TeacherService teacherService,
+                                 MaterialBlobStore materialBlobStore,
+                                 @Value("${materials.uploads.chunk-size:8MB}") DataSize chunkSize,
+                                 @Value("${materials.uploads.session-timeout:PT24H}") Duration sessionTimeout,
+                                 @Value("${materials.uploads.max-sessions-per-teacher:5}") int maxSessionsPerTeacher) {
+        this.classeRepository = classeRepository;
+        this.teacherService = teacherService;
+        this.materialBlobStore = materialBlobStore;
+        this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+        this.sessionTimeout = sessionTimeout;
+        this.maxSessionsPerTeacher = maxSessionsPerTeacher;
+    }
+
+    // Partial files left by a previous run belong to sessions that no longer exist
+    @PostConstruct
+    public void removeLeftoverFiles() throws IOException {
+        materialBlobStore.deleteIncomingFiles(SESSION_PREFIX, Instant.MAX);
+    }
+
+    public UploadSessionDTO create(Long teacherId, UploadRequestDTO request) throws IOException {
+        Classe classe = classeRepository.findById(request.getClassId())
+                .orElseThrow(() -> new RuntimeException("Class not found"));
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new RuntimeException("File name is required");
+        }
+        long size = request.getSize() != null ? request.getSize() : 0;
+        if (size <= 0) {
+            throw new RuntimeException("Size must be positive");
+        }
+        if (size > materialBlobStore.maxFileSize()) {
+            throw new RuntimeException("File is larger than " + DataSize.ofBytes(materialBlobStore.maxFileSize()).toMegabytes() + " MB");
+        }
+        if (sessions.values().stream().filter(session -> session.teacherId.equals(teacherId)).count() >= maxSessionsPerTeacher) {
+            throw new RuntimeException("Too many uploads in progress; finish or cancel one first");
+        }
+        if (materialBlobStore.usableSpace() < size) {
+            throw new RuntimeException("Not enough storage space for this upload");
+        }
+
+        // Sized up front, so every chunk is a positional write into space the file already has
+        Path file = materialBlobStore.createIncomingFile(SESSION_PREFIX);
+        FileChannel channel;
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(size);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        Session session = new Session(UUID.randomUUID().toString(), teacherId, classe, request.getFileName(),
+                request.getContentType(), request.getSha256(), size, (int) ((size + chunkSize - 1) / chunkSize), file,
+                channel);
+        sessions.put(session.id, session);
+        return toDTO(session);
+    }
+
+    public UploadSessionDTO getProgress(Long teacherId, String uploadId) {
+        return toDTO(session(teacherId, uploadId));
+    }
+
+    // Reads the body straight into the file at offset; a chunk only counts once all of its bytes are written
+    public UploadSessionDTO writeChunk(Long teacherId, String uploadId, long offset, InputStream content) throws IOException {
+        Session session = session(teacherId, uploadId);
+        if (offset < 0 || offset >= session.size || offset % chunkSize != 0) {
+            throw new RuntimeException("Offset must be a multiple of " + chunkSize + " below " + session.size);
+        }
+        long length = Math.min(chunkSize, session.size - offset);
+        session.touch();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long written = 0;
+        try {
+            for (int read; (read = content.read(buffer.array())) != -1; ) {
+                if (written + read > length) {
+                    throw new RuntimeException("Chunk at offset " + offset + " must be " + length + " bytes");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += session.channel.write(buffer, offset + written);
+                }
+            }
+        } catch (ClosedChannelException e) {
+            throw new RuntimeException("Upload is no longer open");
+        }
+        if (written != length) {
+            throw new RuntimeException("Chunk at offset " + offset + " must be " + length + " bytes, got " + written);
+        }
+        session.received((int) (offset / chunkSize), length);
+        return toDTO(session);
+    }
+
+    public LearningMaterial commit(Long teacherId, String uploadId) throws IOException {
+        Session session = session(teacherId, uploadId);
+        synchronized (session) {
+            if (session.received.cardinality() < session.chunks) {
+                throw new RuntimeException("Upload is incomplete: " + session.received.cardinality() + " of "
+                        + session.chunks + " chunks received");
+            }
+            if (sessions.remove(uploadId) == null) {
+                throw new RuntimeException("Upload not found");
+            }
+        }
+        try {
+            session.channel.force(false);
+            session.channel.close();
+            return materialBlobStore.store(session.file, blob -> {
+                if (session.sha256 != null && !session.sha256.equalsIgnoreCase(blob.sha256())) {
+                    throw new RuntimeException("Upload is corrupt: expected SHA-256 " + session.sha256 + " but got "
+                            + blob.sha256());
+                }
+                return teacherService.saveStoredMaterial(session.classe, session.fileName, session.contentType, blob);
+            });
+        } finally {
+            Files.deleteIfExists(session.file);
+        }
+    }
+
+    public void cancel(Long teacherId, String uploadId) throws IOException {
+        discard(session(teacherId, uploadId));
+    }
+
+    @Scheduled(initialDelayString = "${materials.uploads.cleanup-interval:PT15M}",
+            fixedDelayString = "${materials.uploads.cleanup-interval:PT15M}")
+    public void removeExpiredSessions() throws IOException {
+        Instant now = Instant.now();
+        for (Session session : List.copyOf(sessions.values())) {
+            if (!session.expiresAt(sessionTimeout).isAfter(now)) {
+                discard(session);
+            }
+        }
+    }
+
+    private void discard(Session session) throws IOException {
+        if (sessions.remove(session.id, session)) {
+            session.channel.close();
+            Files.deleteIfExists(session.file);
+        }
+    }
+
+    // Other teachers' sessions are reported as missing rather than forbidden
+    private Session session(Long teacherId, String uploadId) {
+        Session session = sessions.get(uploadId);
+        if (session == null || !session.teacherId.equals(teacherId)) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    private UploadSessionDTO toDTO(Session session) {
+        List<Long> missing = new ArrayList<>();
+        long received;
+        synchronized (session) {
+            for (int chunk = session.received.nextClearBit(0); chunk < session.chunks;
+                 chunk = session.received.nextClearBit(chunk + 1)) {
+                missing.add((long) chunk * chunkSize);
+            }
+            received = session.receivedBytes;
+        }
+        return new UploadSessionDTO(session.id, session.classe.getId(), session.fileName, session.size, chunkSize,
+                received, missing, session.expiresAt(sessionTimeout));
+    }
+
+    private static final class Session {
+        private final String id;
+        private final Long teacherId;
+        private final Classe classe;
+        private final String fileName;
+        private final String contentType;
+        private final String sha256;
+        private final long size;
+        private final int chunks;
+        private final Path file;
+        private final FileChannel channel; // positional writes, so chunks can be written concurrently
+        private final BitSet received = new BitSet(); // guarded by this
+        private long receivedBytes; // guarded by this
+        private volatile Instant lastActivity = Instant.now();
+
+        private Session(String id, Long teacherId, Classe classe, String fileName, String contentType, String sha256,
+                        long size, int chunks, Path file, FileChannel channel) {
+            this.id = id;
+            this.teacherId = teacherId;
+            this.classe = classe;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.sha256 = sha256;
+            this.size = size;
+            this.chunks = chunks;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        private void touch() {
+            lastActivity = Instant.now();
+        }
+
+        private synchronized void received(int chunk, long length) {
+            if (!received.get(chunk)) {
+                received.set(chunk);
+                receivedBytes += length;
+            }
+        }
+
+        private Instant expiresAt(Duration timeout) {
+            return lastActivity.plus(timeout);
+        }
+    }
+}
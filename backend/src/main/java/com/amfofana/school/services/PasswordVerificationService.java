@@ -0,0 +1,75 @@
+package com.amfofana.school.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+
+// Runs BCrypt checks on a small dedicated pool so a login storm cannot tie up every request thread on hashing.
+// When the queue is full, or a check waits too long, callers get a RejectedExecutionException (mapped to 503).
+// The queue is a small multiple of the pool, so a caller that is let in waits a few hash rounds at most, and
+// hashing plus waiting logins must leave most Tomcat request threads free; startup fails otherwise.
+@Service
+public class PasswordVerificationService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    // Checked against when the email is unknown, so both paths cost one BCrypt round
+    private final String dummyHash;
+
+    public PasswordVerificationService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                       @Value("${auth.login.threads:0}") int threads,
+                                       @Value("${auth.login.queue-per-thread:2}") int queuePerThread,
+                                       @Value("${auth.login.timeout-ms:1000}") long timeoutMillis,
+                                       @Value("${server.tomcat.threads.max:200}") int requestThreads) {
+        // One thread per core by default, capped so large machines still fit the limit below
+        int poolSize = threads > 0 ? threads
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), requestThreads / (2 * (1 + queuePerThread))));
+        int queueCapacity = poolSize * queuePerThread;
+        if (poolSize + queueCapacity > requestThreads / 2) {
+            throw new RuntimeException("auth.login allows " + (poolSize + queueCapacity)
+                    + " logins in flight; keep it at most half of server.tomcat.threads.max (" + requestThreads + ")");
+        }
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-check-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = passwordEncoder.encode("password-check-dummy");
+
+        Gauge.builder("auth.login.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password checks waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password checks currently hashing")
+                .register(meterRegistry);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        String hash = encodedPassword != null ? encodedPassword : dummyHash;
+        Future<Boolean> check = executor.submit(() -> passwordEncoder.matches(rawPassword, hash));
+        try {
+            return check.get(timeoutMillis, TimeUnit.MILLISECONDS) && encodedPassword != null;
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new RejectedExecutionException("Password verification timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Password verification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,28 @@
+package com.amfofana.school.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-user security versions embedded in access tokens. Bumping a user's version revokes every token issued
+// before the change. The table lives in memory, so tokens issued before startup must be checked against the database.
+@Service
+public class SecurityVersionService {
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    private final Date startedAt = new Date();
+
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    public void revoke(Long userId) {
+        versions.merge(userId, 1, Integer::sum);
+    }
+
+    public boolean isTrusted(Date issuedAt) {
+        return issuedAt != null && !issuedAt.before(startedAt);
+    }
+}
@@ -0,0 +1,100 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.AttendanceRateDTO;
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.StudentDashboardDTO;
+import com.amfofana.school.dto.StudentResultDTO;
+import com.amfofana.school.entities.LearningMaterial;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// The student home page in one call. Its reads are independent, so each runs on its own virtual thread and the
+// page costs its slowest read instead of their sum. All reads share one deadline; a read that fails or misses
+// it is cancelled and named in unavailable, and the other sections are still returned.
+@Service
+public class StudentDashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentDashboardService.class);
+
+    private final StudentService studentService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final MeterRegistry meterRegistry;
+    private final long branchTimeoutNanos;
+    private final ExecutorService branches = Executors.newVirtualThreadPerTaskExecutor();
+
+    public StudentDashboardService(StudentService studentService, AttendanceAnalyticsService attendanceAnalyticsService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${students.dashboard.branch-timeout:2s}") Duration branchTimeout) {
+        this.studentService = studentService;
+        this.attendanceAnalyticsService = attendanceAnalyticsService;
+        this.meterRegistry = meterRegistry;
+        this.branchTimeoutNanos = branchTimeout.toNanos();
+    }
+
+    public StudentDashboardDTO getDashboard(Long studentId) {
+        LocalDate today = LocalDate.now();
+        // Same window as /student/exams without parameters
+        LocalDate examsUntil = today.plusWeeks(4).minusDays(1);
+
+        Future<List<StudentDashboardDTO.ClassSummaryDTO>> classes =
+                branches.submit(() -> studentService.getClassSummariesByStudent(studentId));
+        Future<AttendanceRateDTO> attendance =
+                branches.submit(() -> attendanceAnalyticsService.getStudentRate(studentId, null, LocalDate.MIN, today));
+        Future<List<StudentResultDTO>> results = branches.submit(() -> studentService.getResultsByStudent(studentId));
+        Future<List<ExamCalendarEntryDTO>> exams =
+                branches.submit(() -> studentService.getExamsByStudent(studentId, today, examsUntil));
+        Future<List<StudentDashboardDTO.MaterialSummaryDTO>> materials = branches.submit(() ->
+                studentService.getMaterialsByStudent(studentId).stream().map(StudentDashboardService::summary).toList());
+
+        long deadline = System.nanoTime() + branchTimeoutNanos;
+        List<String> unavailable = new ArrayList<>();
+        StudentDashboardDTO dashboard = new StudentDashboardDTO();
+        dashboard.setClasses(join("classes", classes, deadline, unavailable));
+        dashboard.setAttendance(join("attendance", attendance, deadline, unavailable));
+        dashboard.setResults(join("results", results, deadline, unavailable));
+        dashboard.setUpcomingExams(join("upcomingExams", exams, deadline, unavailable));
+        dashboard.setMaterials(join("materials", materials, deadline, unavailable));
+        dashboard.setUnavailable(unavailable);
+        return dashboard;
+    }
+
+    // Once the request thread is interrupted every remaining branch is cancelled, so none outlives the request
+    private <T> T join(String section, Future<T> branch, long deadline, List<String> unavailable) {
+        try {
+            return branch.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Reported through unavailable; the other sections are still worth returning
+            log.warn("Dashboard section {} failed", section, e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section {} missed the {} ms deadline", section,
+                    TimeUnit.NANOSECONDS.toMillis(branchTimeoutNanos));
+        }
+        branch.cancel(true);
+        unavailable.add(section);
+        meterRegistry.counter("students.dashboard.unavailable", "section", section).increment();
+        return null;
+    }
+
+    private static StudentDashboardDTO.MaterialSummaryDTO summary(LearningMaterial material) {
+        return new StudentDashboardDTO.MaterialSummaryDTO(material.getId(), material.getClasse().getId(),
+                material.getClasse().getName(), material.getUrl(), material.getFileName(), material.getContentType(),
+                material.getSize(), material.getTimestamp());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        branches.shutdownNow();
+    }
+}
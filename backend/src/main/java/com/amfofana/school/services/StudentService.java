@@ -1,61 +1,97 @@
 package com.amfofana.school.services;
 
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.StudentDashboardDTO;
+import com.amfofana.school.dto.StudentResultDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
 import com.amfofana.school.entities.*;
 import com.amfofana.school.repositories.*;
+import com.amfofana.school.utils.FileDownload;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class StudentService {
 
+    private static final long MAX_CALENDAR_DAYS = 366;
+
     private final ClasseRepository classeRepository;
     private final AttendanceRepository attendanceRepository;
     private final ExamResultRepository examResultRepository;
+    private final LearningMaterialCache learningMaterialCache;
+    private final ExamCalendarCache examCalendarCache;
+    private final TimetableEngine timetableEngine;
     private final LearningMaterialRepository learningMaterialRepository;
-    private final ExamRepository examRepository;
-    private final UserRepository userRepository;
+    private final MaterialBlobStore materialBlobStore;
 
     public StudentService(ClasseRepository classeRepository,
                           AttendanceRepository attendanceRepository,
                           ExamResultRepository examResultRepository,
+                          LearningMaterialCache learningMaterialCache,
+                          ExamCalendarCache examCalendarCache,
+                          TimetableEngine timetableEngine,
                           LearningMaterialRepository learningMaterialRepository,
-                          ExamRepository examRepository,
-                          UserRepository userRepository) {
+                          MaterialBlobStore materialBlobStore) {
         this.classeRepository = classeRepository;
         this.attendanceRepository = attendanceRepository;
         this.examResultRepository = examResultRepository;
+        this.learningMaterialCache = learningMaterialCache;
+        this.examCalendarCache = examCalendarCache;
+        this.timetableEngine = timetableEngine;
         this.learningMaterialRepository = learningMaterialRepository;
-        this.examRepository = examRepository;
-        this.userRepository = userRepository;
+        this.materialBlobStore = materialBlobStore;
     }
 
+    // The caller passes the authenticated student's id, so the user itself is never reloaded here
     public List<Classe> getClassesByStudent(Long studentId) {
-        User student = userRepository.findById(studentId).orElseThrow(() -> new RuntimeException("Student not found"));
-        return classeRepository.findByStudentsContains(student);
+        return classeRepository.findByStudents_Id(studentId);
+    }
+
+    public List<StudentDashboardDTO.ClassSummaryDTO> getClassSummariesByStudent(Long studentId) {
+        return classeRepository.findSummariesByStudentId(studentId);
     }
 
     public List<Attendance> getAttendanceByStudent(Long studentId) {
-        User student = userRepository.findById(studentId).orElseThrow(() -> new RuntimeException("Student not found"));
-        return attendanceRepository.findByStudent(student);
+        return attendanceRepository.findByStudent_Id(studentId);
     }
 
-    public List<ExamResult> getResultsByStudent(Long studentId) {
-        User student = userRepository.findById(studentId).orElseThrow(() -> new RuntimeException("Student not found"));
-        return examResultRepository.findByStudent(student).stream()
-                .filter(result -> result.getStatus() == ExamResult.Status.SUBMITTED)
-                .collect(Collectors.toList());
+    public List<StudentResultDTO> getResultsByStudent(Long studentId) {
+        return examResultRepository.findResultsByStudent(studentId, ExamResult.Status.SUBMITTED);
     }
 
-    public List<Exam> getExamsByStudent(Long studentId) {
-        return examRepository.findAll();
+    public List<ExamCalendarEntryDTO> getExamsByStudent(Long studentId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("Invalid date range");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_CALENDAR_DAYS) {
+            throw new RuntimeException("Date range too large; at most " + MAX_CALENDAR_DAYS + " days");
+        }
+        return examCalendarCache.findByClassIds(classeRepository.findIdsByStudentId(studentId), from, to);
     }
 
     public List<LearningMaterial> getMaterialsByStudent(Long studentId) {
-        List<Classe> classes = getClassesByStudent(studentId);
-        return classes.stream()
-                .flatMap(classe -> learningMaterialRepository.findByClasse(classe).stream())
-                .collect(Collectors.toList());
+        return learningMaterialCache.findByClassIds(classeRepository.findIdsByStudentId(studentId));
+    }
+
+    public FileDownload getMaterialDownload(Long studentId, Long materialId) {
+        LearningMaterial material = learningMaterialRepository.findById(materialId)
+                .orElseThrow(() -> new RuntimeException("Material not found"));
+        if (!classeRepository.existsByIdAndStudents_Id(material.getClasse().getId(), studentId)) {
+            throw new RuntimeException("You are not enrolled in this material's class");
+        }
+        if (material.getSha256() == null) {
+            throw new RuntimeException("Material has no stored file");
+        }
+        // The content hash is a strong validator for free
+        return FileDownload.of(materialBlobStore.path(material.getSha256()), material.getFileName(),
+                material.getContentType(), "\"" + material.getSha256() + "\"");
+    }
+
+    // The week of every class the student is enrolled in, from the in-memory timetable
+    public List<TimetableSlotDTO> getTimetableByStudent(Long studentId) {
+        return timetableEngine.getClassWeek(classeRepository.findIdsByStudentId(studentId));
     }
 }
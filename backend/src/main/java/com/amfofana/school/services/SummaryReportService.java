@@ -0,0 +1,116 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ReportDTO;
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.utils.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Dashboard figures kept in memory. Seeded once the application is ready (after the data initializer has run),
+// moved by the services that create and delete rows, and periodically overwritten from the database so that
+// writes made outside those services (or lost to a race with a reconcile) do not drift for long.
+@Service
+public class SummaryReportService {
+
+    private static final String COUNTS_SQL = """
+            SELECT (SELECT count(*) FROM users WHERE role = 'STUDENT'),
+                   (SELECT count(*) FROM users WHERE role = 'TEACHER'),
+                   (SELECT count(*) FROM users WHERE role = 'ADMIN'),
+                   (SELECT count(*) FROM classes),
+                   (SELECT count(*) FROM exams),
+                   (SELECT count(*) FROM subjects)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong students = new AtomicLong();
+    private final AtomicLong teachers = new AtomicLong();
+    private final AtomicLong admins = new AtomicLong();
+    private final AtomicLong classes = new AtomicLong();
+    private final AtomicLong exams = new AtomicLong();
+    private final AtomicLong subjects = new AtomicLong();
+
+    public SummaryReportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public ReportDTO getSummaryReport() {
+        ReportDTO report = new ReportDTO();
+        report.setTotalStudents(students.get());
+        report.setTotalTeachers(teachers.get());
+        report.setTotalAdmins(admins.get());
+        report.setTotalClasses(classes.get());
+        report.setTotalExams(exams.get());
+        report.setTotalSubjects(subjects.get());
+        return report;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${reports.summary.reconcile-interval:PT5M}",
+            fixedDelayString = "${reports.summary.reconcile-interval:PT5M}")
+    public void reconcile() {
+        jdbcTemplate.query(COUNTS_SQL, rs -> {
+            students.set(rs.getLong(1));
+            teachers.set(rs.getLong(2));
+            admins.set(rs.getLong(3));
+            classes.set(rs.getLong(4));
+            exams.set(rs.getLong(5));
+            subjects.set(rs.getLong(6));
+        });
+    }
+
+    public void userAdded(Role role) {
+        adjust(usersWith(role), 1);
+    }
+
+    public void userRemoved(Role role) {
+        adjust(usersWith(role), -1);
+    }
+
+    public void classAdded() {
+        adjust(classes, 1);
+    }
+
+    public void classRemoved() {
+        adjust(classes, -1);
+    }
+
+    public void examAdded() {
+        adjust(exams, 1);
+    }
+
+    public void examRemoved() {
+        adjust(exams, -1);
+    }
+
+    public void subjectAdded() {
+        adjust(subjects, 1);
+    }
+
+    public void subjectRemoved() {
+        adjust(subjects, -1);
+    }
+
+    private AtomicLong usersWith(Role role) {
+        if (role == null) {
+            return null;
+        }
+        return switch (role) {
+            case STUDENT -> students;
+            case TEACHER -> teachers;
+            case ADMIN -> admins;
+        };
+    }
+
+    // Inside a transaction the change is only counted once it commits
+    private void adjust(AtomicLong counter, long delta) {
+        if (counter != null) {
+            AfterCommit.run(() -> counter.addAndGet(delta));
+        }
+    }
+}
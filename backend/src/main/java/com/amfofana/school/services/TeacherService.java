@@ -1,15 +1,28 @@
 package com.amfofana.school.services;
 
 import com.amfofana.school.dto.AttendanceDTO;
+import com.amfofana.school.dto.CursorPageDTO;
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.ExamClashDTO;
 import com.amfofana.school.dto.MarksDTO;
+import com.amfofana.school.dto.MarksSubmissionResultDTO;
+import com.amfofana.school.dto.ResultSubmissionDTO;
 import com.amfofana.school.entities.*;
 import com.amfofana.school.repositories.*;
+import com.amfofana.school.utils.AfterCommit;
+import com.amfofana.school.utils.Pagination;
+import jakarta.transaction.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +36,17 @@ public class TeacherService {
     private final LearningMaterialRepository learningMaterialRepository;
     private final SubjectRepository subjectRepository;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityVersionService securityVersionService;
+    private final Pagination pagination;
+    private final LearningMaterialCache learningMaterialCache;
+    private final ExamCalendarCache examCalendarCache;
+    private final SummaryReportService summaryReportService;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
+    private final ExamStatisticsService examStatisticsService;
+    private final GradingPolicy gradingPolicy;
+    private final ExamClashDetector examClashDetector;
+    private final MaterialBlobStore materialBlobStore;
+    private final ContentVersions contentVersions;
 
     public TeacherService(ClasseRepository classeRepository,
                           AttendanceRepository attendanceRepository,
@@ -31,7 +55,18 @@ public class TeacherService {
                           ExamRepository examRepository,
                           LearningMaterialRepository learningMaterialRepository,
                           SubjectRepository subjectRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          SecurityVersionService securityVersionService,
+                          Pagination pagination,
+                          LearningMaterialCache learningMaterialCache,
+                          ExamCalendarCache examCalendarCache,
+                          SummaryReportService summaryReportService,
+                          AttendanceAnalyticsService attendanceAnalyticsService,
+                          ExamStatisticsService examStatisticsService,
+                          GradingPolicy gradingPolicy,
+                          ExamClashDetector examClashDetector,
+                          MaterialBlobStore materialBlobStore,
+                          ContentVersions contentVersions) {
         this.classeRepository = classeRepository;
         this.attendanceRepository = attendanceRepository;
         this.examResultRepository = examResultRepository;
@@ -40,6 +75,17 @@ public class TeacherService {
         this.learningMaterialRepository = learningMaterialRepository;
         this.subjectRepository = subjectRepository;
         this.passwordEncoder = passwordEncoder;
+        this.securityVersionService = securityVersionService;
+        this.pagination = pagination;
+        this.learningMaterialCache = learningMaterialCache;
+        this.examCalendarCache = examCalendarCache;
+        this.summaryReportService = summaryReportService;
+        this.attendanceAnalyticsService = attendanceAnalyticsService;
+        this.examStatisticsService = examStatisticsService;
+        this.gradingPolicy = gradingPolicy;
+        this.examClashDetector = examClashDetector;
+        this.materialBlobStore = materialBlobStore;
+        this.contentVersions = contentVersions;
     }
 
     public List<Classe> getClassesByTeacher(Long teacherId) {
@@ -63,76 +109,172 @@ public class TeacherService {
         return new ArrayList<>(classe.getStudents());
     }
 
-    public void submitAttendance(AttendanceDTO attendanceDTO) {
-        Classe classe = classeRepository.findById(attendanceDTO.getClassId()).orElseThrow(() -> new RuntimeException("Class not found"));
-        for (AttendanceDTO.AttendanceRecordDTO record : attendanceDTO.getRecords()) {
-            User student = userRepository.findById(record.getStudentId()).orElseThrow(() -> new RuntimeException("Student not found"));
-            Attendance attendance = new Attendance();
-            attendance.setClasse(classe);
-            attendance.setStudent(student);
-            attendance.setDate(attendanceDTO.getDate());
-            attendance.setStatus(record.isPresent());
-            attendanceRepository.save(attendance);
+    @Transactional
+    public int submitAttendance(AttendanceDTO attendanceDTO) {
+        if (!classeRepository.existsById(attendanceDTO.getClassId())) {
+            throw new RuntimeException("Class not found");
         }
+        List<AttendanceDTO.AttendanceRecordDTO> records = attendanceDTO.getRecords();
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> studentIds = records.stream()
+                .map(AttendanceDTO.AttendanceRecordDTO::getStudentId)
+                .collect(Collectors.toSet());
+        requireStudentsExist(studentIds);
+
+        int written = attendanceRepository.insertAll(attendanceDTO.getClassId(), attendanceDTO.getDate(), records);
+        attendanceAnalyticsService.recordAttendance(attendanceDTO.getClassId(), attendanceDTO.getDate(), records);
+        contentVersions.studentsChanged(studentIds);
+        return written;
     }
 
-    public void submitMarks(MarksDTO marksDTO) {
-        Exam exam = examRepository.findById(marksDTO.getExamId()).orElseThrow(() -> new RuntimeException("Exam not found"));
+    @Transactional
+    public MarksSubmissionResultDTO submitMarks(MarksDTO marksDTO) {
+        if (!examRepository.existsById(marksDTO.getExamId())) {
+            throw new RuntimeException("Exam not found");
+        }
+        if (marksDTO.getMarks() == null || marksDTO.getMarks().isEmpty()) {
+            return new MarksSubmissionResultDTO(0, 0, 0, 0);
+        }
+
+        // A sheet may list the same student twice; the last score wins, as it would have when resubmitting
+        Map<Long, Double> marksByStudent = new LinkedHashMap<>();
         for (MarksDTO.MarkRecordDTO record : marksDTO.getMarks()) {
-            User student = userRepository.findById(record.getStudentId()).orElseThrow(() -> new RuntimeException("Student not found"));
-            ExamResult examResult = new ExamResult();
-            examResult.setExam(exam);
-            examResult.setStudent(student);
-            examResult.setMarks(record.getScore());
-            examResultRepository.save(examResult);
+            marksByStudent.put(record.getStudentId(), record.getScore());
+        }
+        requireStudentsExist(marksByStudent.keySet());
+
+        MarksSubmissionResultDTO result = examResultRepository.upsertMarks(marksDTO.getExamId(), marksByStudent);
+        examStatisticsService.evict(List.of(marksDTO.getExamId()));
+        contentVersions.studentsChanged(marksByStudent.keySet());
+        return result;
+    }
+
+    // Resolves every id with one query instead of a findById per student
+    private void requireStudentsExist(Set<Long> studentIds) {
+        Set<Long> missing = new HashSet<>(studentIds);
+        userRepository.findExistingIds(studentIds).forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Student not found: " + missing);
         }
     }
 
     public Exam createExam(Exam exam) {
-        return examRepository.save(exam);
+        Exam saved = examClashDetector.place(clashEntry(null, exam), () -> examRepository.save(exam));
+        examCalendarCache.evict(saved.getClasse().getId(), saved.getDate());
+        summaryReportService.examAdded();
+        return saved;
+    }
+
+    // Dry run of the clash check for a new exam (no id) or a move of an existing one
+    public List<ExamClashDTO> findExamClashes(Exam exam) {
+        ExamCalendarEntryDTO entry = clashEntry(exam.getId(), exam);
+        return examClashDetector.findClashes(entry.getId(), entry.getClassId(), entry.getDate(),
+                entry.getStartTime(), entry.getEndTime());
+    }
+
+    private static ExamCalendarEntryDTO clashEntry(Long id, Exam exam) {
+        if (exam.getClasse() == null || exam.getClasse().getId() == null) {
+            throw new RuntimeException("Class is required");
+        }
+        if (exam.getDate() == null || exam.getStartTime() == null || exam.getEndTime() == null) {
+            throw new RuntimeException("Date, start time and end time are required");
+        }
+        if (!exam.getStartTime().isBefore(exam.getEndTime())) {
+            throw new RuntimeException("Start time must be before end time");
+        }
+        return new ExamCalendarEntryDTO(id, exam.getName(), exam.getClasse().getId(), exam.getClasse().getName(),
+                exam.getSubject() != null ? exam.getSubject().getName() : null, exam.getDate(), exam.getStartTime(),
+                exam.getEndTime());
     }
 
-    public List<Exam> getAllExams() {
-        return examRepository.findAll();
+    public CursorPageDTO<Exam> getAllExams(String cursor, Integer limit) {
+        List<Exam> exams = examRepository.findByIdGreaterThan(pagination.afterId(cursor), pagination.keyset(limit));
+        return pagination.page(exams, limit, Exam::getId);
     }
 
     public Exam updateExam(Long id, Exam examDetails) {
         Exam exam = examRepository.findById(id).orElseThrow(() -> new RuntimeException("Exam not found"));
+        examCalendarCache.evict(exam.getClasse().getId(), exam.getDate());
+        contentVersions.classChanged(exam.getClasse().getId()); // results show the exam's name, date and class
         exam.setName(examDetails.getName());
         exam.setClasse(examDetails.getClasse());
         exam.setSubject(examDetails.getSubject());
         exam.setDate(examDetails.getDate());
         exam.setStartTime(examDetails.getStartTime());
         exam.setEndTime(examDetails.getEndTime());
-        return examRepository.save(exam);
+        Exam saved = examClashDetector.place(clashEntry(id, exam), () -> examRepository.save(exam));
+        examCalendarCache.evict(saved.getClasse().getId(), saved.getDate());
+        contentVersions.classChanged(saved.getClasse().getId());
+        return saved;
     }
 
     public void deleteExam(Long id) {
-        examRepository.deleteById(id);
+        examRepository.findById(id).ifPresent(exam -> {
+            examRepository.delete(exam);
+            examClashDetector.removeExam(exam.getId());
+            examStatisticsService.evict(List.of(exam.getId()));
+            examCalendarCache.evict(exam.getClasse().getId(), exam.getDate());
+            contentVersions.classChanged(exam.getClasse().getId());
+            summaryReportService.examRemoved();
+        });
     }
 
-    public List<ExamResult> getResultsByTeacher(Long teacherId) {
-        List<User> students = getStudentsByTeacher(teacherId);
-        return students.stream()
-                .flatMap(student -> examResultRepository.findByStudent(student).stream())
-                .collect(Collectors.toList());
+    public CursorPageDTO<ExamResult> getResultsByTeacher(Long teacherId, Long examId, Long subjectId,
+                                                         ExamResult.Status status, String cursor, Integer limit) {
+        List<ExamResult> results = examResultRepository.findByTeacher(teacherId, examId, subjectId, status,
+                pagination.afterId(cursor), pagination.keyset(limit));
+        return pagination.page(results, limit, ExamResult::getId);
     }
 
     public LearningMaterial uploadLearningMaterial(LearningMaterial material) {
-        return learningMaterialRepository.save(material);
+        LearningMaterial saved = learningMaterialRepository.save(material);
+        learningMaterialCache.evict(saved.getClasse().getId());
+        contentVersions.classChanged(saved.getClasse().getId());
+        return saved;
+    }
+
+    // The file is streamed straight into the blob store; a file already stored for any class is not kept twice
+    public LearningMaterial uploadLearningMaterialFile(Long classId, String fileName, String contentType,
+                                                       InputStream content) throws IOException {
+        Classe classe = classeRepository.findById(classId).orElseThrow(() -> new RuntimeException("Class not found"));
+        if (fileName == null || fileName.isBlank()) {
+            throw new RuntimeException("File name is required");
+        }
+        return materialBlobStore.store(content, blob -> saveStoredMaterial(classe, fileName, contentType, blob));
+    }
+
+    // Links a blob that is being moved into the store to a class; runs under the blob's lock
+    public LearningMaterial saveStoredMaterial(Classe classe, String fileName, String contentType,
+                                               MaterialBlobStore.Blob blob) {
+        LearningMaterial material = new LearningMaterial();
+        material.setClasse(classe);
+        material.setUrl(fileName);
+        material.setFileName(fileName);
+        material.setContentType(contentType);
+        material.setSize(blob.size());
+        material.setSha256(blob.sha256());
+        LearningMaterial saved = learningMaterialRepository.save(material);
+        learningMaterialCache.evict(classe.getId());
+        contentVersions.classChanged(classe.getId());
+        return saved;
     }
 
     public List<LearningMaterial> getMaterialsByTeacher(Long teacherId) {
-        User teacher = new User();
-        teacher.setId(teacherId);
-        List<Classe> classes = getClassesByTeacher(teacherId);
-        return classes.stream()
-                .flatMap(classe -> learningMaterialRepository.findByClasse(classe).stream())
-                .collect(Collectors.toList());
+        return learningMaterialCache.findByClassIds(classeRepository.findIdsByTeacherId(teacherId));
     }
 
     public void deleteLearningMaterial(Long id) {
-        learningMaterialRepository.deleteById(id);
+        learningMaterialRepository.findById(id).ifPresent(material -> {
+            learningMaterialRepository.delete(material);
+            learningMaterialCache.evict(material.getClasse().getId());
+            contentVersions.classChanged(material.getClasse().getId());
+            if (material.getSha256() != null) {
+                AfterCommit.run(() -> materialBlobStore.release(material.getSha256()));
+            }
+        });
     }
 
     public List<Subject> getAllSubjects() {
@@ -141,9 +283,17 @@ public class TeacherService {
 
     public User updateProfile(Long userId, Map<String, String> payload) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        boolean emailChanged = !user.getEmail().equals(payload.get("email"));
         user.setName(payload.get("name"));
         user.setEmail(payload.get("email"));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        classeRepository.findIdsByTeacherId(userId).forEach(learningMaterialCache::evict); // materials embed the teacher
+        contentVersions.userChanged(userId);
+        if (emailChanged) {
+            // Outstanding tokens still carry the old email as their subject
+            securityVersionService.revoke(userId);
+        }
+        return saved;
     }
 
     public void changePassword(Long userId, String currentPassword, String newPassword) {
@@ -153,11 +303,15 @@ public class TeacherService {
         }
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        securityVersionService.revoke(userId);
     }
 
     public ExamResult saveResult(ExamResult result) {
         result.setStatus(ExamResult.Status.DRAFT);
-        return examResultRepository.save(result);
+        ExamResult saved = examResultRepository.save(result);
+        examStatisticsService.evict(List.of(saved.getExam().getId()));
+        contentVersions.studentChanged(saved.getStudent() != null ? saved.getStudent().getId() : null);
+        return saved;
     }
 
     public ExamResult updateResult(Long id, ExamResult resultDetails) {
@@ -167,24 +321,52 @@ public class TeacherService {
         }
         result.setMarks(resultDetails.getMarks());
         result.setGrade(resultDetails.getGrade());
-        return examResultRepository.save(result);
+        ExamResult saved = examResultRepository.save(result);
+        examStatisticsService.evict(List.of(saved.getExam().getId()));
+        return saved;
     }
 
-    public void submitResults(List<Long> resultIds) {
-        List<ExamResult> results = examResultRepository.findAllById(resultIds);
-        for (ExamResult result : results) {
-            result.setStatus(ExamResult.Status.SUBMITTED);
+    // One guarded statement for the whole batch: only DRAFT rows change, and they are graded by the banding
+    // policy on the way, replacing any grade set by hand
+    @Transactional
+    public ResultSubmissionDTO submitResults(List<Long> resultIds) {
+        if (resultIds == null || resultIds.isEmpty()) {
+            return new ResultSubmissionDTO(0, List.of(), List.of());
+        }
+        List<ExamResultRepositoryCustom.SubmissionRow> rows = examResultRepository.submitDrafts(resultIds,
+                gradingPolicy.schoolBands(), gradingPolicy.subjectBands());
+
+        int submitted = 0;
+        Set<Long> examIds = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        List<Long> alreadySubmitted = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (ExamResultRepositoryCustom.SubmissionRow row : rows) {
+            if (row.submitted()) {
+                submitted++;
+                examIds.add(row.examId());
+                studentIds.add(row.studentId());
+            } else if (row.exists()) {
+                alreadySubmitted.add(row.resultId());
+            } else {
+                missing.add(row.resultId());
+            }
         }
-        examResultRepository.saveAll(results);
+        examStatisticsService.evict(examIds);
+        contentVersions.studentsChanged(studentIds);
+        return new ResultSubmissionDTO(submitted, alreadySubmitted, missing);
     }
 
-    public List<ExamResult> filterResults(Long classId, Long studentId) {
+    public CursorPageDTO<ExamResult> filterResults(Long classId, Long studentId, String cursor, Integer limit) {
+        long afterId = pagination.afterId(cursor);
+        List<ExamResult> results;
         if (classId != null) {
-            return examResultRepository.findByExam_Classe_Id(classId);
-        }
-        if (studentId != null) {
-            return examResultRepository.findByStudent_Id(studentId);
+            results = examResultRepository.findByExam_Classe_IdAndIdGreaterThan(classId, afterId, pagination.keyset(limit));
+        } else if (studentId != null) {
+            results = examResultRepository.findByStudent_IdAndIdGreaterThan(studentId, afterId, pagination.keyset(limit));
+        } else {
+            results = examResultRepository.findByIdGreaterThan(afterId, pagination.keyset(limit));
         }
-        return examResultRepository.findAll();
+        return pagination.page(results, limit, ExamResult::getId);
     }
 }
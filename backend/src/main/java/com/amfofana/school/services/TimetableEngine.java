@@ -0,0 +1,283 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.entities.Timetable;
+import com.amfofana.school.repositories.TimetableRepository;
+import com.amfofana.school.utils.IntervalTree;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// The whole timetable in memory: an interval tree per (class, day) and per (teacher, day), where a class's slots
+// belong to its class teacher. Writes are checked against both trees and run under the write lock, so two clashing
+// writes cannot both pass the check.
+@Service
+public class TimetableEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TimetableEngine.class);
+
+    private static final Comparator<TimetableSlotDTO> WEEK_ORDER = Comparator
+            .comparing(TimetableSlotDTO::getDayOfWeek)
+            .thenComparing(TimetableSlotDTO::getStartTime)
+            .thenComparing(TimetableSlotDTO::getClassId);
+
+    private final TimetableRepository timetableRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, TimetableSlotDTO> slots = new HashMap<>();
+    private final Map<DayKey, IntervalTree<TimetableSlotDTO>> classDays = new HashMap<>();
+    private final Map<DayKey, IntervalTree<TimetableSlotDTO>> teacherDays = new HashMap<>();
+
+    public TimetableEngine(TimetableRepository timetableRepository) {
+        this.timetableRepository = timetableRepository;
+    }
+
+    // Rows already in the table are taken as they are, even where they overlap; only new writes are checked.
+    // Rows whose start is not before their end predate that check and are left out of the engine.
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            for (TimetableSlotDTO slot : timetableRepository.findAllSlots()) {
+                if (slot.getStartTime().isBefore(slot.getEndTime())) {
+                    add(slot);
+                } else {
+                    log.warn("Skipping timetable entry {}: start {} is not before end {}", slot.getId(),
+                            slot.getStartTime(), slot.getEndTime());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // slot.id is null for a new entry; the id of the row returned by write is recorded once it succeeds
+    public Timetable place(TimetableSlotDTO slot, Supplier<Timetable> write) {
+        if (slot.getDayOfWeek() == null || slot.getStartTime() == null || slot.getEndTime() == null) {
+            throw new RuntimeException("Day, start time and end time are required");
+        }
+        if (!slot.getStartTime().isBefore(slot.getEndTime())) {
+            throw new RuntimeException("Start time must be before end time");
+        }
+        lock.writeLock().lock();
+        try {
+            TimetableSlotDTO previous = slot.getId() != null ? slots.get(slot.getId()) : null;
+            if (previous != null) {
+                remove(previous); // an entry never clashes with its own old slot
+            }
+            try {
+                requireFree(slot);
+                Timetable saved = write.get();
+                slot.setId(saved.getId());
+                add(slot);
+                return saved;
+            } catch (RuntimeException e) {
+                if (previous != null) {
+                    add(previous);
+                }
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long id, Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            TimetableSlotDTO slot = slots.get(id);
+            if (slot != null) {
+                remove(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called once the class is gone; its rows are removed by the database cascade
+    public void removeClass(Long classId) {
+        lock.writeLock().lock();
+        try {
+            slotsOfClass(classId).forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves the class's slots to another teacher (or to none), refusing if they clash with that teacher's own slots
+    public void assignTeacher(Long classId, Long teacherId, Runnable write) {
+        lock.writeLock().lock();
+        try {
+            List<TimetableSlotDTO> classSlots = slotsOfClass(classId);
+            classSlots.forEach(this::remove);
+            List<TimetableSlotDTO> moved = new ArrayList<>();
+            for (TimetableSlotDTO slot : classSlots) {
+                TimetableSlotDTO movedSlot = copy(slot);
+                movedSlot.setTeacherId(teacherId);
+                moved.add(movedSlot);
+            }
+            try {
+                if (teacherId != null) {
+                    for (TimetableSlotDTO slot : moved) {
+                        requireFree(teacherDays.get(new DayKey(teacherId, slot.getDayOfWeek())), slot, "teacher");
+                    }
+                }
+                write.run();
+            } catch (RuntimeException e) {
+                classSlots.forEach(this::add);
+                throw e;
+            }
+            moved.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The teacher's classes are left without a teacher; see AdminService.deleteUser
+    public void removeTeacher(Long teacherId) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> classIds = new HashSet<>();
+            for (TimetableSlotDTO slot : slots.values()) {
+                if (teacherId.equals(slot.getTeacherId())) {
+                    classIds.add(slot.getClassId());
+                }
+            }
+            classIds.forEach(classId -> assignTeacher(classId, null, () -> {
+            }));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renameSubject(Long subjectId, String name) {
+        lock.writeLock().lock();
+        try {
+            slots.values().stream()
+                    .filter(slot -> subjectId.equals(slot.getSubjectId()))
+                    .forEach(slot -> slot.setSubject(name));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<TimetableSlotDTO> getClassWeek(Collection<Long> classIds) {
+        return week(classDays, classIds);
+    }
+
+    public List<TimetableSlotDTO> getTeacherWeek(Long teacherId) {
+        return week(teacherDays, List.of(teacherId));
+    }
+
+    // The class's lessons on that day sharing a moment with [start, end)
+    public List<TimetableSlotDTO> findOverlapping(Long classId, DayOfWeek day, LocalTime start, LocalTime end) {
+        lock.readLock().lock();
+        try {
+            IntervalTree<TimetableSlotDTO> tree = classDays.get(new DayKey(classId, day));
+            if (tree == null) {
+                return List.of();
+            }
+            return tree.findAllOverlaps(start.toSecondOfDay(), end.toSecondOfDay()).stream()
+                    .map(TimetableEngine::copy)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copies are handed out, so callers never see a slot change under them
+    private List<TimetableSlotDTO> week(Map<DayKey, IntervalTree<TimetableSlotDTO>> trees, Collection<Long> ownerIds) {
+        List<TimetableSlotDTO> week = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long ownerId : new HashSet<>(ownerIds)) {
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    IntervalTree<TimetableSlotDTO> tree = trees.get(new DayKey(ownerId, day));
+                    if (tree != null) {
+                        tree.values().forEach(slot -> week.add(copy(slot)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        week.sort(WEEK_ORDER);
+        return week;
+    }
+
+    private void requireFree(TimetableSlotDTO slot) {
+        requireFree(classDays.get(new DayKey(slot.getClassId(), slot.getDayOfWeek())), slot, "class");
+        if (slot.getTeacherId() != null) {
+            requireFree(teacherDays.get(new DayKey(slot.getTeacherId(), slot.getDayOfWeek())), slot, "teacher");
+        }
+    }
+
+    private static void requireFree(IntervalTree<TimetableSlotDTO> tree, TimetableSlotDTO slot, String owner) {
+        TimetableSlotDTO clash = tree != null ? tree.findOverlap(start(slot), end(slot)) : null;
+        if (clash != null) {
+            throw new RuntimeException("Timetable conflict: the " + owner + " already has entry " + clash.getId()
+                    + " (" + clash.getSubject() + ") on " + clash.getDayOfWeek() + " "
+                    + clash.getStartTime() + "-" + clash.getEndTime());
+        }
+    }
+
+    private void add(TimetableSlotDTO slot) {
+        slots.put(slot.getId(), slot);
+        classDays.computeIfAbsent(new DayKey(slot.getClassId(), slot.getDayOfWeek()), key -> new IntervalTree<>())
+                .insert(start(slot), end(slot), slot.getId(), slot);
+        if (slot.getTeacherId() != null) {
+            teacherDays.computeIfAbsent(new DayKey(slot.getTeacherId(), slot.getDayOfWeek()), key -> new IntervalTree<>())
+                    .insert(start(slot), end(slot), slot.getId(), slot);
+        }
+    }
+
+    private void remove(TimetableSlotDTO slot) {
+        slots.remove(slot.getId());
+        removeFrom(classDays, new DayKey(slot.getClassId(), slot.getDayOfWeek()), slot);
+        if (slot.getTeacherId() != null) {
+            removeFrom(teacherDays, new DayKey(slot.getTeacherId(), slot.getDayOfWeek()), slot);
+        }
+    }
+
+    private static void removeFrom(Map<DayKey, IntervalTree<TimetableSlotDTO>> trees, DayKey key, TimetableSlotDTO slot) {
+        IntervalTree<TimetableSlotDTO> tree = trees.get(key);
+        if (tree != null && tree.remove(start(slot), slot.getId()) && tree.isEmpty()) {
+            trees.remove(key);
+        }
+    }
+
+    private List<TimetableSlotDTO> slotsOfClass(Long classId) {
+        List<TimetableSlotDTO> classSlots = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            IntervalTree<TimetableSlotDTO> tree = classDays.get(new DayKey(classId, day));
+            if (tree != null) {
+                classSlots.addAll(tree.values());
+            }
+        }
+        return classSlots;
+    }
+
+    private static TimetableSlotDTO copy(TimetableSlotDTO slot) {
+        return new TimetableSlotDTO(slot.getId(), slot.getClassId(), slot.getTeacherId(), slot.getSubjectId(),
+                slot.getSubject(), slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
+    }
+
+    private static int start(TimetableSlotDTO slot) {
+        return slot.getStartTime().toSecondOfDay();
+    }
+
+    private static int end(TimetableSlotDTO slot) {
+        return slot.getEndTime().toSecondOfDay();
+    }
+
+    // ownerId is a class id or a teacher id, depending on the map
+    private record DayKey(Long ownerId, DayOfWeek day) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.AbsenteeDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Attendance held as two compressed bitmaps of student ids per (class, date): who was recorded and who was present.
+// Published bitmaps are never mutated; a write builds a new day and swaps it in, so readers need no locks.
+public class AttendanceBitmapIndex {
+
+    private record Day(RoaringBitmap recorded, RoaringBitmap present) {
+    }
+
+    private static class ClassAttendance {
+        private volatile RoaringBitmap students = new RoaringBitmap(); // everyone ever recorded in the class
+        private final ConcurrentSkipListMap<LocalDate, Day> days = new ConcurrentSkipListMap<>();
+    }
+
+    private final Map<Long, ClassAttendance> classes = new ConcurrentHashMap<>();
+
+    // Later records for the same student and day replace earlier ones, as a re-submitted register would
+    public void record(Long classId, LocalDate date, Map<Long, Boolean> presence) {
+        ClassAttendance attendance = classes.computeIfAbsent(classId, id -> new ClassAttendance());
+        synchronized (attendance) {
+            Day current = attendance.days.get(date);
+            RoaringBitmap recorded = current != null ? current.recorded().clone() : new RoaringBitmap();
+            RoaringBitmap present = current != null ? current.present().clone() : new RoaringBitmap();
+            RoaringBitmap students = attendance.students.clone();
+            presence.forEach((studentId, isPresent) -> {
+                int id = Math.toIntExact(studentId);
+                recorded.add(id);
+                students.add(id);
+                if (isPresent) {
+                    present.add(id);
+                } else {
+                    present.remove(id);
+                }
+            });
+            attendance.days.put(date, new Day(optimized(recorded), optimized(present)));
+            attendance.students = optimized(students);
+        }
+    }
+
+    public void removeStudent(Long studentId) {
+        int id = Math.toIntExact(studentId);
+        for (ClassAttendance attendance : classes.values()) {
+            if (!attendance.students.contains(id)) {
+                continue;
+            }
+            synchronized (attendance) {
+                attendance.days.replaceAll((date, day) -> day.recorded().contains(id)
+                        ? new Day(without(day.recorded(), id), without(day.present(), id))
+                        : day);
+                attendance.students = without(attendance.students, id);
+            }
+        }
+    }
+
+    // Across every class the student was ever recorded in when classId is null
+    public AttendanceRateDTO studentRate(Long studentId, Long classId, LocalDate from, LocalDate to) {
+        int id = Math.toIntExact(studentId);
+        long present = 0;
+        long recorded = 0;
+        for (ClassAttendance attendance : classesFor(classId)) {
+            if (!attendance.students.contains(id)) {
+                continue;
+            }
+            for (Day day : attendance.days.subMap(from, true, to, true).values()) {
+                if (day.recorded().contains(id)) {
+                    recorded++;
+                    if (day.present().contains(id)) {
+                        present++;
+                    }
+                }
+            }
+        }
+        return rate(present, recorded);
+    }
+
+    // Student-days: the share of all recorded register entries that were present
+    public AttendanceRateDTO classRate(Long classId, LocalDate from, LocalDate to) {
+        long present = 0;
+        long recorded = 0;
+        for (Day day : daysOf(classId, from, to)) {
+            present += day.present().getLongCardinality();
+            recorded += day.recorded().getLongCardinality();
+        }
+        return rate(present, recorded);
+    }
+
+    public List<AttendanceDayDTO> dailyPresence(Long classId, LocalDate from, LocalDate to) {
+        ClassAttendance attendance = classes.get(classId);
+        if (attendance == null) {
+            return List.of();
+        }
+        List<AttendanceDayDTO> presence = new ArrayList<>();
+        attendance.days.subMap(from, true, to, true).forEach((date, day) ->
+                presence.add(new AttendanceDayDTO(date, day.present().getCardinality(), day.recorded().getCardinality())));
+        return presence;
+    }
+
+    // Students whose share of missed recorded days is at least the threshold, worst first
+    public List<AbsenteeDTO> chronicAbsentees(Long classId, LocalDate from, LocalDate to, double threshold) {
+        ClassAttendance attendance = classes.get(classId);
+        if (attendance == null) {
+            return List.of();
+        }
+        int[] ids = attendance.students.toArray();
+        int[] recordedDays = new int[ids.length];
+        int[] absentDays = new int[ids.length];
+        for (Day day : attendance.days.subMap(from, true, to, true).values()) {
+            count(recordedDays, ids, day.recorded());
+            count(absentDays, ids, RoaringBitmap.andNot(day.recorded(), day.present()));
+        }
+        List<AbsenteeDTO> absentees = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (recordedDays[i] == 0) {
+                continue;
+            }
+            double absenceRate = (double) absentDays[i] / recordedDays[i];
+            if (absenceRate >= threshold) {
+                absentees.add(new AbsenteeDTO((long) ids[i], absentDays[i], recordedDays[i], absenceRate));
+            }
+        }
+        absentees.sort(Comparator.comparingDouble(AbsenteeDTO::getAbsenceRate).reversed()
+                .thenComparing(AbsenteeDTO::getStudentId));
+        return absentees;
+    }
+
+    private Collection<ClassAttendance> classesFor(Long classId) {
+        if (classId == null) {
+            return classes.values();
+        }
+        ClassAttendance attendance = classes.get(classId);
+        return attendance != null ? List.of(attendance) : List.of();
+    }
+
+    private Collection<Day> daysOf(Long classId, LocalDate from, LocalDate to) {
+        ClassAttendance attendance = classes.get(classId);
+        return attendance != null ? attendance.days.subMap(from, true, to, true).values() : List.of();
+    }
+
+    // Merges two ascending id sequences; counts[i] belongs to students[i]. A day written after the students
+    // snapshot was taken can hold ids the snapshot lacks; those are left for the next query.
+    private static void count(int[] counts, int[] students, RoaringBitmap ids) {
+        PeekableIntIterator iterator = ids.getIntIterator();
+        int i = 0;
+        while (iterator.hasNext() && i < students.length) {
+            int id = iterator.next();
+            while (i < students.length && students[i] < id) {
+                i++;
+            }
+            if (i < students.length && students[i] == id) {
+                counts[i]++;
+            }
+        }
+    }
+
+    private static AttendanceRateDTO rate(long present, long recorded) {
+        return new AttendanceRateDTO(present, recorded, recorded == 0 ? 0 : (double) present / recorded);
+    }
+
+    private static RoaringBitmap without(RoaringBitmap bitmap, int id) {
+        RoaringBitmap copy = bitmap.clone();
+        copy.remove(id);
+        return optimized(copy);
+    }
+
+    private static RoaringBitmap optimized(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    // Bulk load path: bitmaps are built in place and only published by build()
+    public static class Loader {
+
+        private final Map<Long, Map<LocalDate, RoaringBitmap[]>> days = new HashMap<>();
+
+        public void add(Long classId, LocalDate date, Long studentId, boolean present) {
+            RoaringBitmap[] day = days.computeIfAbsent(classId, id -> new HashMap<>())
+                    .computeIfAbsent(date, d -> new RoaringBitmap[]{new RoaringBitmap(), new RoaringBitmap()});
+            int id = Math.toIntExact(studentId);
+            day[0].add(id);
+            if (present) {
+                day[1].add(id);
+            } else {
+                day[1].remove(id);
+            }
+        }
+
+        public AttendanceBitmapIndex build() {
+            AttendanceBitmapIndex index = new AttendanceBitmapIndex();
+            days.forEach((classId, classDays) -> {
+                ClassAttendance attendance = new ClassAttendance();
+                RoaringBitmap students = new RoaringBitmap();
+                classDays.forEach((date, day) -> {
+                    attendance.days.put(date, new Day(optimized(day[0]), optimized(day[1])));
+                    students.or(day[0]);
+                });
+                attendance.students = optimized(students);
+                index.classes.put(classId, attendance);
+            });
+            return index;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.amfofana.school.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.temporal.Temporal;
+import java.util.List;
+
+// Writes each row straight from the JDBC cursor to the response as NDJSON or CSV; nothing is collected in memory
+public class ExportRowWriter implements RowCallbackHandler, Closeable {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Unsupported export format: " + name);
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Format format;
+    private final List<String> columns;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private long rowCount;
+
+    public ExportRowWriter(Format format, List<String> columns, OutputStream out) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.NDJSON) {
+            this.json = JSON_FACTORY.createGenerator(writer);
+            this.json.setRootValueSeparator(null);
+        } else {
+            this.json = null;
+            writeCsvLine(columns.toArray());
+        }
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = rs.getObject(i + 1);
+            values[i] = value instanceof java.util.Date || value instanceof Temporal ? value.toString() : value;
+        }
+        try {
+            if (format == Format.NDJSON) {
+                writeJsonLine(values);
+            } else {
+                writeCsvLine(values);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeJsonLine(Object[] values) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            json.writeFieldName(columns.get(i));
+            Object value = values[i];
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Number number) {
+                writeNumber(number);
+            } else if (value instanceof Boolean bool) {
+                json.writeBoolean(bool);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeNumber(Number number) throws IOException {
+        if (number instanceof Double || number instanceof Float) {
+            json.writeNumber(number.doubleValue());
+        } else {
+            json.writeNumber(number.longValue());
+        }
+    }
+
+    private void writeCsvLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,182 @@
+package com.amfofana.school.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.List;
+
+// Sends a file from disk with single byte-range, ETag and Last-Modified support. The body is never held in memory:
+// under Tomcat the file is handed to the connector's sendfile, otherwise it is copied with FileChannel.transferTo.
+public class FileDownload {
+
+    // Tomcat's sendfile request attributes; the connector sends the file itself after the servlet returns
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this a plain copy is cheaper than setting up sendfile, as in Tomcat's DefaultServlet
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final Path path;
+    private final String fileName;
+    private final String contentType;
+    private final long size;
+    private final Instant lastModified;
+    private final String etag;
+
+    public FileDownload(Path path, String fileName, String contentType, long size, Instant lastModified, String etag) {
+        this.path = path;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.etag = etag;
+    }
+
+    public static FileDownload of(Path path, String fileName, String contentType, String etag) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found");
+        } catch (IOException e) {
+            throw new RuntimeException("File could not be read", e);
+        }
+        return new FileDownload(path, fileName, contentType, attributes.size(),
+                attributes.lastModifiedTime().toInstant(), etag);
+    }
+
+    public void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // HTTP dates have one second resolution
+        long lastModifiedMillis = lastModified.getEpochSecond() * 1000;
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModifiedMillis);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (notModified(request, lastModifiedMillis)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size; // exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, lastModifiedMillis)) {
+            List<HttpRange> ranges = parseRanges(range);
+            // Malformed and multi-range requests get the whole file, which RFC 9110 allows
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size) + 1;
+                } catch (IllegalArgumentException e) {
+                    start = end = 0;
+                }
+                if (start >= end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition().toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (end - start >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    throw new IOException("File was truncated while it was being sent");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // If-None-Match takes precedence; If-Modified-Since is only consulted without it
+    private boolean notModified(HttpServletRequest request, long lastModifiedMillis) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || weakTag(tag).equals(weakTag(etag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModifiedMillis <= ifModifiedSince;
+    }
+
+    // A range is only honoured if the client still holds this exact version; If-Range needs a strong match
+    private boolean ifRangeMatches(HttpServletRequest request, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(etag);
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModifiedMillis;
+    }
+
+    // Plain ASCII names go out as they are; anything else is sent as an RFC 5987 filename*
+    private ContentDisposition contentDisposition() {
+        ContentDisposition.Builder builder = ContentDisposition.attachment();
+        if (fileName == null) {
+            return builder.build();
+        }
+        boolean ascii = StandardCharsets.US_ASCII.newEncoder().canEncode(fileName);
+        return (ascii ? builder.filename(fileName) : builder.filename(fileName, StandardCharsets.UTF_8)).build();
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private static String weakTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
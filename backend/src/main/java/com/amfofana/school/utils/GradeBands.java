@@ -0,0 +1,48 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.entities.Grade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// An immutable banding policy: grades ordered from best to worst, each with the lowest mark that earns it
+public final class GradeBands {
+
+    public record Band(Grade grade, double minMark) {
+    }
+
+    private final List<Band> bands;
+
+    // Grades left out are never awarded; FF is always the fallback and takes no threshold
+    public GradeBands(Map<Grade, Double> thresholds) {
+        List<Band> ordered = new ArrayList<>();
+        for (Grade grade : Grade.values()) {
+            Double minMark = thresholds.get(grade);
+            if (minMark == null) {
+                continue;
+            }
+            if (grade == Grade.FF) {
+                throw new IllegalArgumentException("FF is awarded below every other band and takes no threshold");
+            }
+            if (!ordered.isEmpty() && minMark >= ordered.get(ordered.size() - 1).minMark()) {
+                throw new IllegalArgumentException("Grade bands must decrease from AA to DD: " + thresholds);
+            }
+            ordered.add(new Band(grade, minMark));
+        }
+        this.bands = List.copyOf(ordered);
+    }
+
+    public List<Band> bands() {
+        return bands;
+    }
+
+    public Grade gradeFor(double mark) {
+        for (Band band : bands) {
+            if (mark >= band.minMark()) {
+                return band.grade();
+            }
+        }
+        return Grade.FF;
+    }
+}
@@ -0,0 +1,214 @@
+package com.amfofana.school.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Half-open [start, end) intervals in an AVL tree ordered by (start, id). Every node also keeps the latest end in its
+// subtree, which lets findOverlap follow a single root-to-leaf path: O(log n). Not thread-safe; callers lock.
+public class IntervalTree<V> {
+
+    private static final class Node<V> {
+        private final int start;
+        private final int end;
+        private final long id;
+        private final V value;
+        private Node<V> left;
+        private Node<V> right;
+        private int height = 1;
+        private int maxEnd;
+
+        private Node(int start, int end, long id, V value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+    private boolean removed;
+
+    public void insert(int start, int end, long id, V value) {
+        if (start >= end) {
+            throw new IllegalArgumentException("Interval start must be before its end");
+        }
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    public boolean remove(int start, long id) {
+        removed = false;
+        root = remove(root, start, id);
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    // Any stored interval sharing a moment with [start, end), or null. If the left subtree reaches past start,
+    // an overlap exists there whenever one exists at all, so only one branch is ever followed.
+    public V findOverlap(int start, int end) {
+        Node<V> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return node.value;
+            }
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return null;
+    }
+
+    // Every stored interval sharing a moment with [start, end), in start order: O(log n + k) for k matches
+    public List<V> findAllOverlaps(int start, int end) {
+        List<V> overlaps = new ArrayList<>();
+        collectOverlaps(root, start, end, overlaps);
+        return overlaps;
+    }
+
+    // In start order
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        collect(root, values);
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    int height() {
+        return height(root);
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> remove(Node<V> node, int start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            removed = true;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeFirst(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> removeFirst(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        return rebalance(node);
+    }
+
+    private Node<V> rebalance(Node<V> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static <V> void update(Node<V> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null) {
+            node.maxEnd = Math.max(node.maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            node.maxEnd = Math.max(node.maxEnd, node.right.maxEnd);
+        }
+    }
+
+    private static <V> int height(Node<V> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static <V> int compare(int start, long id, Node<V> node) {
+        int comparison = Integer.compare(start, node.start);
+        return comparison != 0 ? comparison : Long.compare(id, node.id);
+    }
+
+    // Subtrees that end before start are skipped, and so is everything right of a node that starts after end
+    private static <V> void collectOverlaps(Node<V> node, int start, int end, List<V> overlaps) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collectOverlaps(node.left, start, end, overlaps);
+        if (node.start < end) {
+            if (start < node.end) {
+                overlaps.add(node.value);
+            }
+            collectOverlaps(node.right, start, end, overlaps);
+        }
+    }
+
+    private static <V> void collect(Node<V> node, List<V> values) {
+        if (node != null) {
+            collect(node.left, values);
+            values.add(node.value);
+            collect(node.right, values);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.entities.Grade;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Summary statistics over parallel arrays of marks and grade ordinals (-1 for an ungraded result)
+public final class MarkStatistics {
+
+    public static final int UNGRADED = -1;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private MarkStatistics() {
+    }
+
+    public static ExamStatisticsDTO compute(double[] marks, int[] grades) {
+        int count = marks.length;
+        int[] histogram = new int[GRADES.length];
+        int ungraded = 0;
+        // Welford's update keeps the variance accurate without a second pass
+        double mean = 0;
+        double squaredDeviations = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double mark = marks[i];
+            double delta = mark - mean;
+            mean += delta / (i + 1);
+            squaredDeviations += delta * (mark - mean);
+            min = Math.min(min, mark);
+            max = Math.max(max, mark);
+            if (grades[i] == UNGRADED) {
+                ungraded++;
+            } else {
+                histogram[grades[i]]++;
+            }
+        }
+
+        Map<Grade, Integer> gradeCounts = new EnumMap<>(Grade.class);
+        for (Grade grade : GRADES) {
+            gradeCounts.put(grade, histogram[grade.ordinal()]);
+        }
+        if (count == 0) {
+            return new ExamStatisticsDTO(0, null, null, null, null, null, null, null, null, null, gradeCounts, 0);
+        }
+
+        double[] sorted = marks.clone();
+        Arrays.sort(sorted);
+        return new ExamStatisticsDTO(count, mean, percentile(sorted, 0.5), Math.sqrt(squaredDeviations / count),
+                min, max, percentile(sorted, 0.1), percentile(sorted, 0.25), percentile(sorted, 0.75),
+                percentile(sorted, 0.9), gradeCounts, ungraded);
+    }
+
+    // Linear interpolation between the closest ranks, as spreadsheets compute PERCENTILE
+    static double percentile(double[] sorted, double fraction) {
+        double rank = fraction * (sorted.length - 1);
+        int lower = (int) rank;
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.CursorPageDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Keyset pagination over the id column: each page is "id > last id seen ORDER BY id LIMIT n",
+// so the cost of a page does not depend on how deep into the table it is.
+@Component
+public class Pagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final int maxPageSize;
+
+    public Pagination(@Value("${pagination.max-page-size:500}") int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Asks for one row more than the page size, so we can tell whether another page exists
+    public Pageable keyset(Integer limit) {
+        return PageRequest.of(0, pageSize(limit) + 1, Sort.by("id"));
+    }
+
+    public long afterId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public <T> CursorPageDTO<T> page(List<T> rows, Integer limit, Function<T, Long> idOf) {
+        int size = pageSize(limit);
+        if (rows.size() <= size) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, size));
+        return new CursorPageDTO<>(items, encode(idOf.apply(items.get(size - 1))));
+    }
+
+    // Keeps the body a plain JSON array and hands out the next cursor in a header
+    public static <T> ResponseEntity<List<T>> toResponse(CursorPageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return maxPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+}
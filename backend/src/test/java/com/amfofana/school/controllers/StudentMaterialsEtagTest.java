@@ -0,0 +1,120 @@
+package com.amfofana.school.controllers;
+
+import com.amfofana.school.config.AuthenticatedUser;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.LearningMaterial;
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.entities.User;
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.repositories.LearningMaterialRepository;
+import com.amfofana.school.repositories.UserRepository;
+import com.amfofana.school.services.SecurityVersionService;
+import com.amfofana.school.utils.JwtUtil;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The materials list is served from LearningMaterialCache, so its ETag must move only together with the cached copy
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:student-materials-etag;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "materials.storage.root=target/student-materials-etag-test-materials"
+})
+@AutoConfigureMockMvc
+class StudentMaterialsEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClasseRepository classeRepository;
+
+    @Autowired
+    private LearningMaterialRepository learningMaterialRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Test
+    void renamedClassIsServedUnderTheNewTagAndThenRevalidated() throws Exception {
+        User admin = saveUser("admin", Role.ADMIN);
+        User teacher = saveUser("teacher", Role.TEACHER);
+        User student = saveUser("student", Role.STUDENT);
+        Classe classe = new Classe();
+        classe.setName("Maths A");
+        classe.setGrade("10");
+        classe.setTeacher(teacher);
+        classe.getStudents().add(student);
+        classe = classeRepository.save(classe);
+        LearningMaterial material = new LearningMaterial();
+        material.setClasse(classe);
+        material.setUrl("https://example.com/notes.pdf");
+        learningMaterialRepository.save(material);
+
+        MvcResult first = materials(student, null);
+        assertThat(first.getResponse().getContentAsString()).contains("Maths A");
+        String tag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/admin/classes/" + classe.getId()).cookie(cookie(admin))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Maths B\",\"grade\":\"10\"}"))
+                .andExpect(status().isOk());
+
+        MvcResult renamed = materials(student, tag);
+        assertThat(renamed.getResponse().getStatus()).isEqualTo(200);
+        assertThat(renamed.getResponse().getContentAsString()).contains("Maths B").doesNotContain("Maths A");
+        String renamedTag = renamed.getResponse().getHeader("ETag");
+        assertThat(renamedTag).isNotEqualTo(tag);
+
+        mockMvc.perform(get("/student/materials").cookie(cookie(student)).header("If-None-Match", renamedTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    private MvcResult materials(User student, String ifNoneMatch) throws Exception {
+        var request = get("/student/materials").cookie(cookie(student));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+
+    private User saveUser(String name, Role role) {
+        User user = new User();
+        user.setUserId(role.name().substring(0, 3) + "000000001");
+        user.setName(name);
+        user.setEmail(name + "@school.test");
+        user.setPassword("unused");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private Cookie cookie(User user) {
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), null, user.getRole());
+        return new Cookie("accessToken", jwtUtil.generateToken(principal, Map.of(
+                JwtUtil.USER_ID_CLAIM, user.getId(),
+                JwtUtil.SECURITY_VERSION_CLAIM, securityVersionService.currentVersion(user.getId()))));
+    }
+}
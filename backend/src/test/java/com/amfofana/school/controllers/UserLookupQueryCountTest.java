@@ -0,0 +1,114 @@
+package com.amfofana.school.controllers;
+
+import com.amfofana.school.config.AuthenticatedUser;
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.entities.User;
+import com.amfofana.school.repositories.UserRepository;
+import com.amfofana.school.services.SecurityVersionService;
+import com.amfofana.school.utils.JwtUtil;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Goes through JwtRequestFilter and a real endpoint of each controller, counting the statements that read users
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-lookups;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.amfofana.school.controllers.UserLookupQueryCountTest$UserStatements",
+        "materials.storage.root=target/user-lookup-test-materials"
+})
+@AutoConfigureMockMvc
+class UserLookupQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @BeforeEach
+    void setUp() {
+        for (Role role : Role.values()) {
+            String email = role.name().toLowerCase() + "@school.test";
+            if (userRepository.findByEmail(email).isEmpty()) {
+                User user = new User();
+                user.setUserId(role.name().substring(0, 3) + "000000000");
+                user.setName(role.name());
+                user.setEmail(email);
+                user.setPassword("unused");
+                user.setRole(role);
+                userRepository.save(user);
+            }
+        }
+    }
+
+    // A token without the user id claim is resolved from the database: that must be the request's only users read
+    @ParameterizedTest
+    @CsvSource({"ADMIN, /admin/subjects", "TEACHER, /teacher/subjects", "STUDENT, /student/results"})
+    void databasePrincipalIsLoadedOncePerRequest(Role role, String endpoint) throws Exception {
+        assertThat(userStatementsFor(endpoint, token(role, false))).isEqualTo(1);
+    }
+
+    // A token with the user id and security version claims needs no users read at all
+    @ParameterizedTest
+    @CsvSource({"ADMIN, /admin/subjects", "TEACHER, /teacher/subjects", "STUDENT, /student/results"})
+    void statelessPrincipalNeedsNoUserLookup(Role role, String endpoint) throws Exception {
+        assertThat(userStatementsFor(endpoint, token(role, true))).isZero();
+    }
+
+    private int userStatementsFor(String endpoint, String token) throws Exception {
+        UserStatements.count.set(0);
+        mockMvc.perform(get(endpoint).cookie(new Cookie("accessToken", token)))
+                .andExpect(status().isOk());
+        return UserStatements.count.get();
+    }
+
+    private String token(Role role, boolean withUserClaims) {
+        User user = userRepository.findByEmail(role.name().toLowerCase() + "@school.test").orElseThrow();
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), null, user.getRole());
+        if (!withUserClaims) {
+            return jwtUtil.generateToken(principal);
+        }
+        return jwtUtil.generateToken(principal, Map.of(
+                JwtUtil.USER_ID_CLAIM, user.getId(),
+                JwtUtil.SECURITY_VERSION_CLAIM, securityVersionService.currentVersion(user.getId())));
+    }
+
+    public static class UserStatements implements StatementInspector {
+
+        static final AtomicInteger count = new AtomicInteger();
+        private static final Pattern READS_USERS = Pattern.compile("\\b(from|join)\\s+users\\b", Pattern.CASE_INSENSITIVE);
+
+        @Override
+        public String inspect(String sql) {
+            if (READS_USERS.matcher(sql).find()) {
+                count.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.amfofana.school.repositories;
+
+import com.amfofana.school.dto.StudentResultDTO;
+import com.amfofana.school.entities.*;
+import com.amfofana.school.utils.GradeBands;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ExamResultRepositoryTest {
+
+    private static final int STUDENTS = 200;
+    private static final Pageable ALL = PageRequest.of(0, 1000, Sort.by("id"));
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ExamResultRepository examResultRepository;
+
+    private User teacher;
+    private Exam mathExam;
+    private Subject physics;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        teacher = persistUser("teacher", Role.TEACHER);
+        User otherTeacher = persistUser("other", Role.TEACHER);
+        Subject math = persistSubject("Math");
+        physics = persistSubject("Physics");
+
+        Classe classe = persistClasse("Class A", teacher);
+        Classe otherClasse = persistClasse("Class B", otherTeacher);
+        mathExam = persistExam(classe, math);
+        Exam physicsExam = persistExam(classe, physics);
+        Exam otherExam = persistExam(otherClasse, math);
+
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(persistUser("student" + i, Role.STUDENT));
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            User student = students.get(i);
+            persistResult(mathExam, student, i % 2 == 0 ? ExamResult.Status.SUBMITTED : ExamResult.Status.DRAFT);
+            persistResult(physicsExam, student, ExamResult.Status.DRAFT);
+            // Same students sit another teacher's exam; those results must not show up
+            persistResult(otherExam, student, ExamResult.Status.SUBMITTED);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loadsOnlyTheTeachersResultsInOneStatement() {
+        List<ExamResult> results = examResultRepository.findByTeacher(teacher.getId(), null, null, null, 0L, ALL);
+
+        assertThat(results).hasSize(2 * STUDENTS);
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.getExam().getClasse().getTeacher().getId()).isEqualTo(teacher.getId());
+            assertThat(result.getStudent().getName()).startsWith("student");
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void filtersByExamSubjectAndStatus() {
+        assertThat(examResultRepository.findByTeacher(teacher.getId(), mathExam.getId(), null, null, 0L, ALL))
+                .hasSize(STUDENTS);
+        assertThat(examResultRepository.findByTeacher(teacher.getId(), null, physics.getId(), null, 0L, ALL))
+                .hasSize(STUDENTS)
+                .allSatisfy(result -> assertThat(result.getExam().getSubject().getName()).isEqualTo("Physics"));
+        assertThat(examResultRepository.findByTeacher(teacher.getId(), null, null, ExamResult.Status.SUBMITTED, 0L, ALL))
+                .hasSize(STUDENTS / 2);
+    }
+
+    @Test
+    void pagesByIdAfterTheCursor() {
+        List<ExamResult> first = examResultRepository.findByTeacher(teacher.getId(), null, null, null, 0L,
+                PageRequest.of(0, 50, Sort.by("id")));
+        List<ExamResult> second = examResultRepository.findByTeacher(teacher.getId(), null, null, null,
+                first.get(first.size() - 1).getId(), PageRequest.of(0, 50, Sort.by("id")));
+
+        assertThat(first).hasSize(50);
+        assertThat(second).hasSize(50);
+        assertThat(second.get(0).getId()).isGreaterThan(first.get(49).getId());
+    }
+
+    @Test
+    void studentResultsAreFilteredInTheQueryAndFlattened() {
+        User student = entityManager.createQuery("select u from User u where u.name = 'student0'", User.class)
+                .getSingleResult();
+        statistics.clear();
+
+        List<StudentResultDTO> results = examResultRepository.findResultsByStudent(student.getId(),
+                ExamResult.Status.SUBMITTED);
+
+        // student0 has a SUBMITTED math result here and one from the other teacher's exam; the physics draft is left out
+        assertThat(results).hasSize(2)
+                .allSatisfy(result -> {
+                    assertThat(result.getExamName()).isEqualTo("Math exam");
+                    assertThat(result.getSubject()).isEqualTo("Math");
+                    assertThat(result.getMarks()).isEqualTo(12.0);
+                });
+        assertThat(results).extracting(StudentResultDTO::getClassName).containsExactlyInAnyOrder("Class A", "Class B");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    // Statistics read submitted marks only; half of the math sheet is still a draft
+    @Test
+    void marksForStatisticsAreFilteredByStatus() {
+        List<ExamResultRepository.MarkRow> submitted = examResultRepository.findMarksByExamIdIn(
+                List.of(mathExam.getId()), ExamResult.Status.SUBMITTED);
+        List<ExamResultRepository.MarkRow> drafts = examResultRepository.findMarksByExamIdIn(
+                List.of(mathExam.getId()), ExamResult.Status.DRAFT);
+
+        assertThat(submitted).hasSize(STUDENTS / 2)
+                .allSatisfy(row -> assertThat(row.getExamId()).isEqualTo(mathExam.getId()));
+        assertThat(drafts).hasSize(STUDENTS / 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void examGradeBandsAreWrittenOnlyToRowsThatChange() {
+        GradeBands bands = new GradeBands(Map.of(Grade.AA, 15.0, Grade.CC, 12.0, Grade.DD, 10.0));
+
+        assertThat(examResultRepository.applyGradeBandsToExam(mathExam.getId(), bands)).isEqualTo(STUDENTS);
+        assertThat(examResultRepository.applyGradeBandsToExam(mathExam.getId(), bands)).isZero();
+        assertThat(countGraded(mathExam, Grade.CC)).isEqualTo(STUDENTS);
+        assertThat(countGraded(null, null)).isEqualTo(STUDENTS);
+    }
+
+    // exam and grade are optional filters; counts graded results only
+    private long countGraded(Exam exam, Grade grade) {
+        return entityManager.createQuery("""
+                        select count(r) from ExamResult r
+                        where r.grade is not null and (:exam is null or r.exam = :exam) and (:grade is null or r.grade = :grade)
+                        """, Long.class)
+                .setParameter("exam", exam)
+                .setParameter("grade", grade)
+                .getSingleResult();
+    }
+
+    private User persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@school.com");
+        user.setPassword("x");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Subject persistSubject(String name) {
+        Subject subject = new Subject();
+        subject.setName(name);
+        entityManager.persist(subject);
+        return subject;
+    }
+
+    private Classe persistClasse(String name, User teacher) {
+        Classe classe = new Classe();
+        classe.setName(name);
+        classe.setTeacher(teacher);
+        entityManager.persist(classe);
+        return classe;
+    }
+
+    private Exam persistExam(Classe classe, Subject subject) {
+        Exam exam = new Exam();
+        exam.setName(subject.getName() + " exam");
+        exam.setClasse(classe);
+        exam.setSubject(subject);
+        exam.setDate(LocalDate.of(2024, 6, 1));
+        exam.setStartTime(LocalTime.of(9, 0));
+        exam.setEndTime(LocalTime.of(11, 0));
+        entityManager.persist(exam);
+        return exam;
+    }
+
+    private void persistResult(Exam exam, User student, ExamResult.Status status) {
+        ExamResult result = new ExamResult();
+        result.setExam(exam);
+        result.setStudent(student);
+        result.setMarks(12.0);
+        result.setStatus(status);
+        entityManager.persist(result);
+    }
+}
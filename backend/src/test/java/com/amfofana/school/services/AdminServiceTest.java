@@ -0,0 +1,147 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ClasseDTO;
+import com.amfofana.school.dto.CursorPageDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.entities.User;
+import com.amfofana.school.repositories.*;
+import com.amfofana.school.utils.Pagination;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AdminServiceTest {
+
+    private static final int CLASSES = 500;
+    private static final int TEACHERS = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ClasseRepository classeRepository;
+
+    private UserRepository userRepository;
+    private LearningMaterialCache learningMaterialCache;
+    private AdminService adminService;
+    private List<User> teachers;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        learningMaterialCache = mock(LearningMaterialCache.class);
+        adminService = new AdminService(userRepository, classeRepository,
+                mock(TeacherProfileRepository.class), mock(StudentProfileRepository.class),
+                mock(AttendanceRepository.class), mock(ExamRepository.class), mock(SubjectRepository.class),
+                mock(LearningMaterialRepository.class), mock(TimetableRepository.class), mock(PasswordEncoder.class),
+                mock(ExamResultRepository.class), mock(SecurityVersionService.class), new Pagination(CLASSES),
+                learningMaterialCache, mock(SummaryReportService.class),
+                mock(AttendanceAnalyticsService.class), mock(TimetableEngine.class), mock(ExamClashDetector.class),
+                mock(MaterialBlobStore.class), mock(ContentVersions.class));
+
+        teachers = new ArrayList<>();
+        for (int i = 0; i < TEACHERS; i++) {
+            teachers.add(persistUser("teacher" + i, Role.TEACHER));
+        }
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            students.add(persistUser("student" + i, Role.STUDENT));
+        }
+        for (int i = 0; i < CLASSES; i++) {
+            Classe classe = new Classe();
+            classe.setName("Class " + i);
+            classe.setGrade("G" + (i % 12));
+            classe.setTeacher(teachers.get(i % TEACHERS));
+            // Class i has i % 4 students
+            classe.getStudents().addAll(students.subList(0, i % 4));
+            entityManager.persist(classe);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listsFiveHundredClassesWithCountsInTwoQueries() {
+        CursorPageDTO<ClasseDTO> page = adminService.getAllClasses(null, CLASSES, false);
+
+        assertThat(page.getItems()).hasSize(CLASSES);
+        assertThat(page.getItems()).allSatisfy(classe -> {
+            assertThat(classe.getTeacher()).isNotNull();
+            assertThat(classe.getStudents()).isNull();
+        });
+        assertThat(page.getItems().get(3).getStudentCount()).isEqualTo(3);
+        assertThat(page.getItems().get(4).getStudentCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void includesRostersInTwoQueriesWhenAskedFor() {
+        CursorPageDTO<ClasseDTO> page = adminService.getAllClasses(null, CLASSES, true);
+
+        assertThat(page.getItems()).hasSize(CLASSES);
+        assertThat(page.getItems().get(3).getStudents()).hasSize(3);
+        assertThat(page.getItems().get(3).getStudentCount()).isEqualTo(3);
+        assertThat(page.getItems().get(4).getStudents()).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    // Cached materials carry their class and its teacher, so changing either evicts the class
+    @Test
+    void classAndTeacherChangesEvictCachedMaterials() {
+        Long classId = classeRepository.findAll().get(0).getId();
+        User teacher = teachers.get(1);
+        when(userRepository.findById(teacher.getId())).thenReturn(Optional.of(teacher));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Classe details = new Classe();
+        details.setName("Renamed");
+        adminService.updateClass(classId, details);
+        verify(learningMaterialCache).evict(classId);
+
+        adminService.assignTeacherToClass(teacher.getId(), classId);
+        verify(learningMaterialCache, times(2)).evict(classId);
+
+        User renamed = new User();
+        renamed.setName("Renamed teacher");
+        renamed.setRole(Role.TEACHER);
+        adminService.updateUser(teacher.getId(), renamed);
+        List<Long> taught = classeRepository.findIdsByTeacherId(teacher.getId());
+        assertThat(taught).contains(classId);
+        taught.forEach(id -> verify(learningMaterialCache, atLeastOnce()).evict(id));
+    }
+
+    private User persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@school.com");
+        user.setPassword("x");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,113 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.repositories.ClasseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ContentVersionsTest {
+
+    private ClasseRepository classeRepository;
+    private LearningMaterialCache learningMaterialCache;
+    private SimpleMeterRegistry meterRegistry;
+    private ContentVersions contentVersions;
+
+    @BeforeEach
+    void setUp() {
+        classeRepository = mock(ClasseRepository.class);
+        when(classeRepository.findIdsByStudentId(3L)).thenReturn(List.of(1L, 2L));
+        when(classeRepository.findIdsByStudentId(4L)).thenReturn(List.of(2L));
+        meterRegistry = new SimpleMeterRegistry();
+        learningMaterialCache = mock(LearningMaterialCache.class);
+        contentVersions = new ContentVersions(classeRepository, learningMaterialCache, meterRegistry, 100);
+    }
+
+    @Test
+    void tagMovesOnlyWithTheStudentOrTheirClasses() {
+        String tag = contentVersions.studentTag(3L);
+        assertThat(contentVersions.studentTag(3L)).isEqualTo(tag);
+
+        contentVersions.classChanged(9L);
+        contentVersions.studentChanged(4L);
+        assertThat(contentVersions.studentTag(3L)).isEqualTo(tag);
+
+        contentVersions.classChanged(1L);
+        String afterClassWrite = contentVersions.studentTag(3L);
+        assertThat(afterClassWrite).isNotEqualTo(tag);
+
+        contentVersions.studentChanged(3L);
+        assertThat(contentVersions.studentTag(3L)).isNotIn(tag, afterClassWrite);
+    }
+
+    @Test
+    void classListIsCachedUntilTheStudentChanges() {
+        contentVersions.studentTag(3L);
+        contentVersions.studentTag(3L);
+        verify(classeRepository, times(1)).findIdsByStudentId(3L);
+
+        // Enrolled in a third class, whose counter is already ahead
+        contentVersions.classChanged(5L);
+        when(classeRepository.findIdsByStudentId(3L)).thenReturn(List.of(1L, 2L, 5L));
+        contentVersions.studentChanged(3L);
+        contentVersions.studentTag(3L);
+        verify(classeRepository, times(2)).findIdsByStudentId(3L);
+    }
+
+    @Test
+    void bumpsWaitForTheCommit() {
+        String tag = contentVersions.studentTag(3L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            contentVersions.classChanged(2L);
+            contentVersions.everythingChanged();
+            assertThat(contentVersions.studentTag(3L)).isEqualTo(tag);
+            verifyNoInteractions(learningMaterialCache);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(contentVersions.studentTag(3L)).isNotEqualTo(tag);
+        // Cached materials embed the class, so they go before the tag moves
+        verify(learningMaterialCache).evict(2L);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedAndCounted() {
+        String tag = contentVersions.studentTag(4L);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(contentVersions.checkNotModified(conditionalGet(null, first), tag)).isFalse();
+        assertThat(first.getHeader("ETag")).isEqualTo(tag);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertThat(contentVersions.checkNotModified(conditionalGet(tag, second), tag)).isTrue();
+        assertThat(second.getStatus()).isEqualTo(304);
+
+        contentVersions.studentChanged(4L);
+        assertThat(contentVersions.checkNotModified(conditionalGet(tag, new MockHttpServletResponse()),
+                contentVersions.studentTag(4L))).isFalse();
+
+        assertThat(meterRegistry.get("etags.requests").tag("outcome", "not_modified").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("etags.requests").tag("outcome", "modified").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("etags.not-modified.ratio").gauge().value()).isEqualTo(1.0 / 3);
+    }
+
+    private static ServletWebRequest conditionalGet(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/student/classes");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,116 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.ExamClashDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.TimetableRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Clash checks over a synthetic school: 5,000 students, each in a form class of 25 and in 4 of 400 subject groups
+ * of 50, every class with six lessons a weekday, and an exam session of 300 exams on the checked day.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     "-Dexec.args=-cp %classpath com.amfofana.school.services.ExamClashDetectorBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExamClashDetectorBenchmark {
+
+    private static final int STUDENTS = 5_000;
+    private static final int FORM_CLASSES = 200;
+    private static final int SUBJECT_GROUPS = 400;
+    private static final int GROUPS_PER_STUDENT = 4;
+    private static final LocalDate EXAM_DAY = LocalDate.of(2024, 6, 3);
+
+    private ExamClashDetector detector;
+    private long subjectGroup;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<ClasseRepository.Enrollment> enrollments = new ArrayList<>();
+        for (long student = 1; student <= STUDENTS; student++) {
+            enrollments.add(enrollment(1 + (student - 1) % FORM_CLASSES, student));
+            for (int i = 0; i < GROUPS_PER_STUDENT; i++) {
+                enrollments.add(enrollment(FORM_CLASSES + 1 + random.nextInt(SUBJECT_GROUPS), student));
+            }
+        }
+        List<TimetableSlotDTO> slots = new ArrayList<>();
+        long slotId = 1;
+        for (long classId = 1; classId <= FORM_CLASSES + SUBJECT_GROUPS; classId++) {
+            for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                    DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+                for (int hour = 8; hour < 14; hour++) {
+                    slots.add(new TimetableSlotDTO(slotId++, classId, null, 1L, "Subject", day,
+                            LocalTime.of(hour, 0), LocalTime.of(hour + 1, 0)));
+                }
+            }
+        }
+        List<ExamCalendarEntryDTO> exams = new ArrayList<>();
+        for (long examId = 1; examId <= 300; examId++) {
+            LocalTime start = LocalTime.of(8 + random.nextInt(6), 0);
+            exams.add(new ExamCalendarEntryDTO(examId, "Exam", FORM_CLASSES + 1 + (long) random.nextInt(SUBJECT_GROUPS),
+                    null, null, EXAM_DAY, start, start.plusHours(2)));
+        }
+
+        ClasseRepository classeRepository = mock(ClasseRepository.class);
+        when(classeRepository.findAllEnrollments()).thenReturn(enrollments);
+        ExamRepository examRepository = mock(ExamRepository.class);
+        when(examRepository.findAllCalendarEntries()).thenReturn(exams);
+        TimetableRepository timetableRepository = mock(TimetableRepository.class);
+        when(timetableRepository.findAllSlots()).thenReturn(slots);
+        TimetableEngine timetableEngine = new TimetableEngine(timetableRepository);
+        timetableEngine.load();
+        detector = new ExamClashDetector(classeRepository, examRepository, timetableEngine);
+        detector.load();
+        subjectGroup = FORM_CLASSES + 1;
+    }
+
+    @Benchmark
+    public List<ExamClashDTO> subjectGroupExam() {
+        return detector.findClashes(null, subjectGroup, EXAM_DAY, LocalTime.of(10, 0), LocalTime.of(12, 0));
+    }
+
+    @Benchmark
+    public List<ExamClashDTO> formClassExam() {
+        return detector.findClashes(null, 1L, EXAM_DAY, LocalTime.of(10, 0), LocalTime.of(12, 0));
+    }
+
+    private static ClasseRepository.Enrollment enrollment(long classId, long studentId) {
+        return new ClasseRepository.Enrollment() {
+            @Override
+            public Long getClassId() {
+                return classId;
+            }
+
+            @Override
+            public Long getStudentId() {
+                return studentId;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExamClashDetectorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
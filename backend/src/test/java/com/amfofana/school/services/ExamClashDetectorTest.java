@@ -0,0 +1,173 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.dto.ExamClashDTO;
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.entities.Exam;
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.TimetableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.DayOfWeek.MONDAY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamClashDetectorTest {
+
+    // 2024-06-03 is a Monday
+    private static final LocalDate MONDAY_DATE = LocalDate.of(2024, 6, 3);
+    private static final long MATHS = 1;
+    private static final long PHYSICS = 2;
+    private static final long ART = 3;
+
+    private final AtomicLong ids = new AtomicLong(100);
+    private ExamClashDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        // Students 10 and 11 take maths and physics, 12 takes maths only, 20 takes art only
+        ClasseRepository classeRepository = mock(ClasseRepository.class);
+        when(classeRepository.findAllEnrollments()).thenReturn(List.of(
+                enrollment(MATHS, 10), enrollment(MATHS, 11), enrollment(MATHS, 12),
+                enrollment(PHYSICS, 10), enrollment(PHYSICS, 11), enrollment(ART, 20)));
+        ExamRepository examRepository = mock(ExamRepository.class);
+        when(examRepository.findAllCalendarEntries()).thenReturn(List.of(
+                exam(1L, PHYSICS, "09:00", "11:00"), exam(2L, ART, "09:00", "11:00")));
+        TimetableRepository timetableRepository = mock(TimetableRepository.class);
+        when(timetableRepository.findAllSlots()).thenReturn(List.of(
+                new TimetableSlotDTO(5L, PHYSICS, null, 7L, "Physics", MONDAY, time("13:00"), time("14:00")),
+                new TimetableSlotDTO(6L, MATHS, null, 8L, "Maths", MONDAY, time("13:00"), time("14:00"))));
+        TimetableEngine timetableEngine = new TimetableEngine(timetableRepository);
+        timetableEngine.load();
+        detector = new ExamClashDetector(classeRepository, examRepository, timetableEngine);
+        detector.load();
+    }
+
+    @Test
+    void reportsExamsOfClassesSharingStudents() {
+        List<ExamClashDTO> clashes = detector.findClashes(null, MATHS, MONDAY_DATE, time("10:30"), time("12:00"));
+
+        assertThat(clashes).singleElement().satisfies(clash -> {
+            assertThat(clash.getKind()).isEqualTo(ExamClashDTO.Kind.EXAM);
+            assertThat(clash.getId()).isEqualTo(1L);
+            assertThat(clash.getStudentIds()).containsExactly(10L, 11L);
+        });
+        assertThat(detector.findClashes(null, MATHS, MONDAY_DATE, time("11:00"), time("12:00"))).isEmpty();
+        assertThat(detector.findClashes(null, MATHS, MONDAY_DATE.plusWeeks(1), time("10:30"), time("12:00")))
+                .isEmpty();
+    }
+
+    @Test
+    void reportsLessonsOfOtherClassesButNotTheClassItself() {
+        List<ExamClashDTO> clashes = detector.findClashes(null, MATHS, MONDAY_DATE.plusWeeks(1), time("12:30"),
+                time("13:30"));
+
+        assertThat(clashes).singleElement().satisfies(clash -> {
+            assertThat(clash.getKind()).isEqualTo(ExamClashDTO.Kind.LESSON);
+            assertThat(clash.getId()).isEqualTo(5L);
+            assertThat(clash.getStudentIds()).containsExactly(10L, 11L);
+        });
+    }
+
+    @Test
+    void placeRefusesClashesAndIndexesAcceptedExams() {
+        assertThatThrownBy(() -> place(null, MATHS, "10:00", "12:00"))
+                .hasMessageStartingWith("Exam clashes for 2 students: exam 1");
+
+        Exam saved = place(null, MATHS, "11:00", "12:00");
+        // The exam can be moved within its own time, but now blocks the physics students
+        assertThat(place(saved.getId(), MATHS, "11:00", "12:30").getId()).isEqualTo(saved.getId());
+        assertThat(detector.findClashes(null, PHYSICS, MONDAY_DATE, time("12:00"), time("12:30")))
+                .extracting(ExamClashDTO::getId).containsExactly(saved.getId());
+    }
+
+    @Test
+    void enrollmentChangesAreReflected() {
+        detector.enroll(ART, 10L);
+        assertThat(detector.findClashes(null, MATHS, MONDAY_DATE, time("09:00"), time("10:00")))
+                .extracting(ExamClashDTO::getId).containsExactlyInAnyOrder(1L, 2L);
+
+        detector.removeStudent(10L);
+        detector.removeStudent(11L);
+        assertThat(detector.findClashes(null, MATHS, MONDAY_DATE, time("09:00"), time("10:00"))).isEmpty();
+
+        detector.removeClass(MATHS);
+        assertThat(detector.findClashes(null, PHYSICS, MONDAY_DATE, time("09:00"), time("10:00"))).isEmpty();
+    }
+
+    @Test
+    void deletedExamsNoLongerClash() {
+        detector.removeExam(1L);
+
+        assertThat(detector.findClashes(null, MATHS, MONDAY_DATE, time("09:00"), time("10:00"))).isEmpty();
+    }
+
+    @Test
+    void examsWithInvalidTimesInTheTableAreSkippedAtStartup() {
+        ClasseRepository classeRepository = mock(ClasseRepository.class);
+        when(classeRepository.findAllEnrollments()).thenReturn(List.of(enrollment(MATHS, 10), enrollment(PHYSICS, 10)));
+        ExamRepository examRepository = mock(ExamRepository.class);
+        when(examRepository.findAllCalendarEntries()).thenReturn(List.of(
+                exam(1L, PHYSICS, "11:00", "09:00"),
+                exam(2L, PHYSICS, "09:00", "09:00"),
+                new ExamCalendarEntryDTO(3L, "Exam", PHYSICS, "Class 2", "Subject", MONDAY_DATE, null, null),
+                exam(4L, PHYSICS, "14:00", "15:00")));
+        TimetableRepository timetableRepository = mock(TimetableRepository.class);
+        when(timetableRepository.findAllSlots()).thenReturn(List.of());
+        ExamClashDetector loaded = new ExamClashDetector(classeRepository, examRepository,
+                new TimetableEngine(timetableRepository));
+
+        loaded.load();
+
+        assertThat(loaded.findClashes(null, MATHS, MONDAY_DATE, time("08:00"), time("16:00")))
+                .extracting(ExamClashDTO::getId).containsExactly(4L);
+        // Correcting a skipped exam places it like a new one
+        loaded.place(exam(1L, PHYSICS, "09:00", "11:00"), () -> {
+            Exam saved = new Exam();
+            saved.setId(1L);
+            return saved;
+        });
+        assertThat(loaded.findClashes(null, MATHS, MONDAY_DATE, time("08:00"), time("16:00")))
+                .extracting(ExamClashDTO::getId).containsExactlyInAnyOrder(1L, 4L);
+    }
+
+    private Exam place(Long id, long classId, String start, String end) {
+        return detector.place(exam(id, classId, start, end), () -> {
+            Exam saved = new Exam();
+            saved.setId(id != null ? id : ids.incrementAndGet());
+            return saved;
+        });
+    }
+
+    private static ExamCalendarEntryDTO exam(Long id, long classId, String start, String end) {
+        return new ExamCalendarEntryDTO(id, "Exam", classId, "Class " + classId, "Subject", MONDAY_DATE, time(start),
+                time(end));
+    }
+
+    private static ClasseRepository.Enrollment enrollment(long classId, long studentId) {
+        return new ClasseRepository.Enrollment() {
+            @Override
+            public Long getClassId() {
+                return classId;
+            }
+
+            @Override
+            public Long getStudentId() {
+                return studentId;
+            }
+        };
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value);
+    }
+}
@@ -0,0 +1,72 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.entities.ExamResult;
+import com.amfofana.school.entities.Grade;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.ExamResultRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ExamStatisticsServiceTest {
+
+    private ExamRepository examRepository;
+    private ExamResultRepository examResultRepository;
+    private ExamStatisticsService examStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(ExamRepository.class);
+        examResultRepository = mock(ExamResultRepository.class);
+        examStatisticsService = new ExamStatisticsService(examRepository, examResultRepository,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    // Drafts are still being entered and have no banded grade yet, so only submitted marks are read
+    @Test
+    void statisticsCountSubmittedResultsOnly() {
+        when(examResultRepository.findMarksByExamIdIn(Set.of(1L), ExamResult.Status.SUBMITTED))
+                .thenReturn(List.of(mark(1L, 14.0, Grade.BB), mark(1L, 10.0, Grade.DD)));
+        when(examResultRepository.findMarksByExamIdIn(Set.of(2L), ExamResult.Status.SUBMITTED))
+                .thenReturn(List.of(mark(2L, 12.0, Grade.CC)));
+        when(examRepository.findIds(5L, null)).thenReturn(List.of(1L, 2L));
+
+        ExamStatisticsDTO exam = examStatisticsService.getExamStatistics(1L);
+        ExamStatisticsDTO classe = examStatisticsService.getClassStatistics(5L, null);
+
+        assertThat(exam.getCount()).isEqualTo(2);
+        assertThat(exam.getMean()).isEqualTo(12.0);
+        assertThat(classe.getCount()).isEqualTo(3);
+        assertThat(classe.getUngraded()).isZero();
+        verify(examResultRepository).findMarksByExamIdIn(Set.of(1L), ExamResult.Status.SUBMITTED);
+        verify(examResultRepository).findMarksByExamIdIn(Set.of(2L), ExamResult.Status.SUBMITTED);
+        verifyNoMoreInteractions(examResultRepository);
+    }
+
+    private static ExamResultRepository.MarkRow mark(Long examId, double marks, Grade grade) {
+        return new ExamResultRepository.MarkRow() {
+            @Override
+            public Long getExamId() {
+                return examId;
+            }
+
+            @Override
+            public Double getMarks() {
+                return marks;
+            }
+
+            @Override
+            public Grade getGrade() {
+                return grade;
+            }
+        };
+    }
+}
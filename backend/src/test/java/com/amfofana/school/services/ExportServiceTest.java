@@ -0,0 +1,170 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.entities.*;
+import com.amfofana.school.utils.ExportRowWriter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the real export queries against H2 through a data source that records the fetch size of each plain statement
+@DataJpaTest
+@Import({ExportService.class, ExportServiceTest.FetchSizes.class})
+@TestPropertySource(properties = "export.fetch-size=7")
+class ExportServiceTest {
+
+    private static final int STUDENTS = 20;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private FetchSizes fetchSizes;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = persistUser("teacher", Role.TEACHER);
+        Subject math = new Subject();
+        math.setName("Math");
+        entityManager.persist(math);
+        Classe classe = new Classe();
+        classe.setName("Class A");
+        classe.setTeacher(teacher);
+        entityManager.persist(classe);
+        Exam exam = new Exam();
+        exam.setName("Midterm");
+        exam.setClasse(classe);
+        exam.setSubject(math);
+        exam.setDate(LocalDate.of(2024, 6, 1));
+        exam.setStartTime(LocalTime.of(9, 0));
+        exam.setEndTime(LocalTime.of(11, 0));
+        entityManager.persist(exam);
+
+        for (int i = 0; i < STUDENTS; i++) {
+            User student = persistUser("student" + i, Role.STUDENT);
+            ExamResult result = new ExamResult();
+            result.setExam(exam);
+            result.setStudent(student);
+            result.setMarks((double) i);
+            result.setStatus(ExamResult.Status.SUBMITTED);
+            entityManager.persist(result);
+            Attendance attendance = new Attendance();
+            attendance.setClasse(classe);
+            attendance.setStudent(student);
+            attendance.setDate(LocalDate.of(2024, 6, 3));
+            attendance.setStatus(i % 2 == 0);
+            entityManager.persist(attendance);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        fetchSizes.values.clear();
+    }
+
+    @Test
+    void resultsAreStreamedWithTheConfiguredFetchSize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportResults(ExportRowWriter.Format.NDJSON, out);
+
+        assertThat(fetchSizes.values).containsExactly(7);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(STUDENTS);
+        assertThat(lines).hasSize(STUDENTS);
+        assertThat(lines.get(0)).contains("\"examName\":\"Midterm\"", "\"examDate\":\"2024-06-01\"",
+                "\"studentName\":\"student0\"", "\"marks\":0.0", "\"status\":\"SUBMITTED\"");
+        assertThat(lines.get(STUDENTS - 1)).contains("\"studentName\":\"student19\"", "\"marks\":19.0");
+    }
+
+    @Test
+    void attendanceIsStreamedWithTheConfiguredFetchSize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportAttendance(ExportRowWriter.Format.CSV, out);
+
+        assertThat(fetchSizes.values).containsExactly(7);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(STUDENTS);
+        assertThat(lines).hasSize(STUDENTS + 1);
+        assertThat(lines.get(0)).isEqualTo("attendanceId,date,classId,className,studentId,studentNumber,studentName,present");
+        assertThat(lines.get(1)).contains(",2024-06-03,", ",Class A,", ",student0,true");
+        assertThat(lines.get(STUDENTS)).endsWith(",student19,false");
+    }
+
+    private User persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@school.com");
+        user.setPassword("x");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    // JPA only prepares statements, so every plain statement comes from the export's JdbcTemplate
+    @TestConfiguration
+    static class FetchSizes implements BeanPostProcessor {
+
+        final List<Integer> values = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, dataSource, (method, result) -> method.equals("getConnection")
+                    ? proxy(Connection.class, (Connection) result, (connectionMethod, statement) ->
+                    connectionMethod.equals("createStatement") ? recording((Statement) statement) : statement)
+                    : result);
+        }
+
+        private Statement recording(Statement statement) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("setFetchSize")) {
+                            values.add((Integer) args[0]);
+                        }
+                        return invoke(method, statement, args);
+                    });
+        }
+
+        private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> wrapper.wrap(method.getName(), invoke(method, target, args))));
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        interface ResultWrapper {
+            Object wrap(String method, Object result);
+        }
+    }
+}
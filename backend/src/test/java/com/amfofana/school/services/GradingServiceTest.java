@@ -0,0 +1,105 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.config.GradingProperties;
+import com.amfofana.school.dto.RegradeReportDTO;
+import com.amfofana.school.entities.Grade;
+import com.amfofana.school.repositories.ExamRepository;
+import com.amfofana.school.repositories.ExamResultRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GradingServiceTest {
+
+    private static final LocalDate TERM_START = LocalDate.of(2024, 9, 1);
+    private static final LocalDate TERM_END = LocalDate.of(2025, 1, 31);
+
+    private ExamRepository examRepository;
+    private ExamResultRepository examResultRepository;
+    private ExamStatisticsService examStatisticsService;
+    private GradingProperties properties;
+    private GradingService gradingService;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(ExamRepository.class);
+        examResultRepository = mock(ExamResultRepository.class);
+        examStatisticsService = mock(ExamStatisticsService.class);
+        properties = new GradingProperties();
+        properties.setSubjects(Map.of("Physics", Map.of(Grade.AA, 85.0, Grade.DD, 50.0)));
+        properties.setTermJobParallelism(4);
+        gradingService = new GradingService(examRepository, examResultRepository, new GradingPolicy(properties),
+                examStatisticsService, properties, mock(ContentVersions.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gradingService.shutdown();
+    }
+
+    @Test
+    void subjectsWithoutTheirOwnBandsUseTheSchoolWideOnes() {
+        GradingPolicy policy = new GradingPolicy(properties);
+
+        assertThat(policy.bandsFor("physics").gradeFor(86)).isEqualTo(Grade.AA);
+        assertThat(policy.bandsFor("PHYSICS")).isSameAs(policy.bandsFor("Physics"));
+        assertThat(policy.bandsFor("Math")).isSameAs(policy.schoolBands());
+        assertThat(policy.schoolBands().gradeFor(86)).isEqualTo(Grade.BA);
+        assertThat(policy.subjectBands()).containsOnlyKeys("physics");
+    }
+
+    @Test
+    void termJobRegradesEveryExamOnTheForkJoinPool() {
+        List<ExamRepository.ExamSubject> exams = LongStream.rangeClosed(1, 40)
+                .mapToObj(id -> examSubject(id, id % 2 == 0 ? "Physics" : "Math"))
+                .toList();
+        when(examRepository.findSubjectsByDateBetween(TERM_START, TERM_END)).thenReturn(exams);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(examResultRepository.applyGradeBandsToExam(anyLong(), any())).thenAnswer(call -> {
+            threads.add(Thread.currentThread().getName());
+            return 3;
+        });
+
+        RegradeReportDTO report = gradingService.regradeTerm(TERM_START, TERM_END);
+
+        assertThat(report).isEqualTo(new RegradeReportDTO(40, 120));
+        for (long id = 1; id <= 40; id++) {
+            verify(examResultRepository).applyGradeBandsToExam(eq(id), any());
+        }
+        assertThat(threads).allSatisfy(name -> assertThat(name).startsWith("term-regrade-"));
+        verify(examStatisticsService).evict(LongStream.rangeClosed(1, 40).boxed().toList());
+    }
+
+    @Test
+    void termJobRejectsAnInvertedRange() {
+        assertThatThrownBy(() -> gradingService.regradeTerm(TERM_END, TERM_START))
+                .hasMessage("Invalid date range");
+        verifyNoInteractions(examResultRepository);
+    }
+
+    private static ExamRepository.ExamSubject examSubject(Long id, String subjectName) {
+        return new ExamRepository.ExamSubject() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getSubjectName() {
+                return subjectName;
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.repositories.LearningMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MaterialBlobStoreTest {
+
+    // SHA-256 of "worksheet"
+    private static final String WORKSHEET = "df98a69a5e09d5b879927802fcf18bc53503cd41373f9450bf708334e3165abd";
+
+    @TempDir
+    Path root;
+
+    private LearningMaterialRepository repository;
+    private MaterialBlobStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = mock(LearningMaterialRepository.class);
+        store = new MaterialBlobStore(repository, root.toString(), DataSize.ofBytes(64));
+        store.init();
+    }
+
+    @Test
+    void identicalUploadsAreStoredOnce() throws Exception {
+        MaterialBlobStore.Blob first = store("worksheet");
+        MaterialBlobStore.Blob second = store("worksheet");
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.sha256()).isEqualTo(WORKSHEET);
+        assertThat(first.size()).isEqualTo(9);
+        assertThat(Files.readString(store.path(first.sha256()))).isEqualTo("worksheet");
+        assertThat(blobFiles()).hasSize(1);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void releaseDeletesOnlyUnreferencedBlobs() throws Exception {
+        String sha256 = store("worksheet").sha256();
+
+        when(repository.countBySha256(sha256)).thenReturn(1L);
+        store.release(sha256);
+        assertThat(store.path(sha256)).exists();
+
+        when(repository.countBySha256(sha256)).thenReturn(0L);
+        store.release(sha256);
+        assertThat(store.path(sha256)).doesNotExist();
+    }
+
+    @Test
+    void aFailedSaveLeavesNoNewBlobBehind() throws Exception {
+        assertThatThrownBy(() -> store.store(stream("worksheet"), blob -> {
+            throw new RuntimeException("database down");
+        })).hasMessage("database down");
+
+        assertThat(blobFiles()).isEmpty();
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void oversizedUploadsAreRejected() throws Exception {
+        assertThatThrownBy(() -> store("x".repeat(65))).hasMessageStartingWith("File is larger than");
+
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void rejectsIdsThatAreNotHashes() {
+        assertThatThrownBy(() -> store.path("../../etc/passwd")).hasMessage("Invalid blob id");
+        assertThatThrownBy(() -> store.path(WORKSHEET.toUpperCase())).hasMessage("Invalid blob id");
+    }
+
+    @Test
+    void garbageCollectionRemovesOrphansAndStaleTempFiles() throws Exception {
+        String kept = store("worksheet").sha256();
+        String orphan = store("old answers").sha256();
+        Path staleTemp = Files.createFile(root.resolve("incoming").resolve("upload-1.part"));
+        Files.setLastModifiedTime(staleTemp, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Path freshTemp = Files.createFile(root.resolve("incoming").resolve("upload-2.part"));
+        when(repository.findAllSha256()).thenReturn(Set.of(kept));
+        when(repository.countBySha256(kept)).thenReturn(1L);
+
+        store.collectGarbage();
+
+        assertThat(store.path(kept)).exists();
+        assertThat(store.path(orphan)).doesNotExist();
+        assertThat(staleTemp).doesNotExist();
+        assertThat(freshTemp).exists();
+    }
+
+    private MaterialBlobStore.Blob store(String content) throws Exception {
+        return store.store(stream(content), blob -> blob);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Path> blobFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private List<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve("incoming"))) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.UploadRequestDTO;
+import com.amfofana.school.dto.UploadSessionDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.LearningMaterial;
+import com.amfofana.school.repositories.ClasseRepository;
+import com.amfofana.school.repositories.LearningMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MaterialUploadServiceTest {
+
+    private static final long TEACHER_ID = 2;
+    private static final long CLASS_ID = 1;
+    private static final String CONTENT = "0123456789ab"; // 5-byte chunks at offsets 0, 5 and 10
+
+    @TempDir
+    Path root;
+
+    private MaterialBlobStore blobStore;
+    private ClasseRepository classeRepository;
+    private TeacherService teacherService;
+    private MaterialUploadService uploads;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blobStore = new MaterialBlobStore(mock(LearningMaterialRepository.class), root.toString(), DataSize.ofKilobytes(1));
+        blobStore.init();
+        Classe classe = new Classe();
+        classe.setId(CLASS_ID);
+        classeRepository = mock(ClasseRepository.class);
+        when(classeRepository.findById(CLASS_ID)).thenReturn(Optional.of(classe));
+        teacherService = mock(TeacherService.class);
+        when(teacherService.saveStoredMaterial(eq(classe), any(), any(), any())).thenAnswer(invocation -> {
+            MaterialBlobStore.Blob blob = invocation.getArgument(3);
+            LearningMaterial material = new LearningMaterial();
+            material.setFileName(invocation.getArgument(1));
+            material.setSha256(blob.sha256());
+            material.setSize(blob.size());
+            return material;
+        });
+        uploads = new MaterialUploadService(classeRepository, teacherService, blobStore, DataSize.ofBytes(5),
+                Duration.ofHours(1), 2);
+    }
+
+    @Test
+    void chunksMayArriveInAnyOrderAndBeResent() throws Exception {
+        UploadSessionDTO session = create(CONTENT.length(), sha256(CONTENT));
+        assertThat(session.getMissingOffsets()).containsExactly(0L, 5L, 10L);
+
+        put(session, 10, "ab");
+        put(session, 0, "01234");
+        put(session, 0, "01234");
+        UploadSessionDTO progress = uploads.getProgress(TEACHER_ID, session.getId());
+        assertThat(progress.getReceivedBytes()).isEqualTo(7);
+        assertThat(progress.getMissingOffsets()).containsExactly(5L);
+
+        put(session, 5, "56789");
+        LearningMaterial material = uploads.commit(TEACHER_ID, session.getId());
+
+        assertThat(material.getSha256()).isEqualTo(sha256(CONTENT));
+        assertThat(material.getSize()).isEqualTo(CONTENT.length());
+        assertThat(Files.readString(blobStore.path(material.getSha256()))).isEqualTo(CONTENT);
+        assertThat(incomingFiles()).isEmpty();
+        assertThatThrownBy(() -> uploads.getProgress(TEACHER_ID, session.getId())).hasMessage("Upload not found");
+    }
+
+    @Test
+    void chunksMustBeAlignedAndComplete() throws Exception {
+        UploadSessionDTO session = create(CONTENT.length(), null);
+
+        assertThatThrownBy(() -> put(session, 3, "34567")).hasMessageStartingWith("Offset must be a multiple of 5");
+        assertThatThrownBy(() -> put(session, 0, "012")).hasMessage("Chunk at offset 0 must be 5 bytes, got 3");
+        assertThatThrownBy(() -> put(session, 10, "abc")).hasMessage("Chunk at offset 10 must be 2 bytes");
+        assertThat(uploads.getProgress(TEACHER_ID, session.getId()).getReceivedBytes()).isZero();
+
+        put(session, 0, "01234");
+        assertThatThrownBy(() -> uploads.commit(TEACHER_ID, session.getId()))
+                .hasMessage("Upload is incomplete: 1 of 3 chunks received");
+    }
+
+    @Test
+    void aChecksumMismatchRejectsTheUpload() throws Exception {
+        UploadSessionDTO session = create(CONTENT.length(), sha256("something else"));
+        put(session, 0, "01234");
+        put(session, 5, "56789");
+        put(session, 10, "ab");
+
+        assertThatThrownBy(() -> uploads.commit(TEACHER_ID, session.getId()))
+                .hasMessageStartingWith("Upload is corrupt");
+        assertThat(blobStore.path(sha256(CONTENT))).doesNotExist();
+        assertThat(incomingFiles()).isEmpty();
+    }
+
+    @Test
+    void sessionsArePrivateAndLimited() throws Exception {
+        UploadSessionDTO session = create(CONTENT.length(), null);
+
+        assertThatThrownBy(() -> uploads.getProgress(TEACHER_ID + 1, session.getId())).hasMessage("Upload not found");
+        assertThatThrownBy(() -> create(2048, null)).hasMessageStartingWith("File is larger than");
+        create(1, null);
+        assertThatThrownBy(() -> create(1, null)).hasMessageStartingWith("Too many uploads in progress");
+
+        uploads.cancel(TEACHER_ID, session.getId());
+        assertThat(incomingFiles()).hasSize(1);
+        assertThat(create(1, null).getId()).isNotNull();
+    }
+
+    @Test
+    void idleSessionsAndLeftoverFilesAreRemoved() throws Exception {
+        UploadSessionDTO kept = create(CONTENT.length(), null);
+        MaterialUploadService expiring = new MaterialUploadService(classeRepository, teacherService, blobStore,
+                DataSize.ofBytes(5), Duration.ZERO, 2);
+        UploadSessionDTO idle = expiring.create(TEACHER_ID, request(CONTENT.length(), null));
+
+        uploads.removeExpiredSessions();
+        expiring.removeExpiredSessions();
+        assertThat(incomingFiles()).hasSize(1);
+        assertThatThrownBy(() -> expiring.getProgress(TEACHER_ID, idle.getId())).hasMessage("Upload not found");
+        assertThat(uploads.getProgress(TEACHER_ID, kept.getId()).getMissingOffsets()).hasSize(3);
+
+        // After a restart no session owns the remaining file
+        expiring.removeLeftoverFiles();
+        assertThat(incomingFiles()).isEmpty();
+    }
+
+    private UploadSessionDTO create(long size, String sha256) throws IOException {
+        return uploads.create(TEACHER_ID, request(size, sha256));
+    }
+
+    private static UploadRequestDTO request(long size, String sha256) {
+        UploadRequestDTO request = new UploadRequestDTO();
+        request.setClassId(CLASS_ID);
+        request.setFileName("lecture.mp4");
+        request.setContentType("video/mp4");
+        request.setSize(size);
+        request.setSha256(sha256);
+        return request;
+    }
+
+    private void put(UploadSessionDTO session, long offset, String chunk) throws IOException {
+        uploads.writeChunk(TEACHER_ID, session.getId(), offset,
+                new ByteArrayInputStream(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<Path> incomingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve("incoming"))) {
+            return files.toList();
+        }
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(java.security.MessageDigest.getInstance("SHA-256")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
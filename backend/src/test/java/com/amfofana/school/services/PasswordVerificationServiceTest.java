@@ -0,0 +1,71 @@
+package com.amfofana.school.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordVerificationServiceTest {
+
+    @Test
+    void unknownUserStillCostsOneCheckButNeverMatches() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenReturn("dummy-hash");
+        when(encoder.matches(anyString(), anyString())).thenReturn(true);
+        PasswordVerificationService service = new PasswordVerificationService(encoder, new SimpleMeterRegistry(), 1, 1, 1000, 200);
+
+        assertThat(service.matches("secret", null)).isFalse();
+        verify(encoder).matches("secret", "dummy-hash");
+        service.shutdown();
+    }
+
+    @Test
+    void refusesToStartWhenLoginsCouldTieUpMostRequestThreads() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+
+        assertThatThrownBy(() -> new PasswordVerificationService(encoder, new SimpleMeterRegistry(), 40, 2, 1000, 200))
+                .hasMessageContaining("keep it at most half of server.tomcat.threads.max (200)");
+    }
+
+    // A saturated pool answers at once; the caller must not sit on its request thread until the timeout
+    @Test
+    void rejectsWithoutWaitingWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch hashing = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenReturn("dummy-hash");
+        when(encoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            hashing.countDown();
+            release.await();
+            return true;
+        });
+        PasswordVerificationService service = new PasswordVerificationService(encoder, new SimpleMeterRegistry(), 1, 1, 5000, 200);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One check occupies the only thread, a second one fills the queue
+            Future<Boolean> first = callers.submit(() -> service.matches("a", "hash"));
+            hashing.await();
+            Future<Boolean> second = callers.submit(() -> service.matches("b", "hash"));
+            Thread.sleep(100);
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> service.matches("c", "hash")).isInstanceOf(RejectedExecutionException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+
+            release.countDown();
+            assertThat(first.get()).isTrue();
+            assertThat(second.get()).isTrue();
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.AttendanceRateDTO;
+import com.amfofana.school.dto.StudentDashboardDTO;
+import com.amfofana.school.dto.StudentResultDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.LearningMaterial;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.stubbing.Answer;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StudentDashboardServiceTest {
+
+    private StudentService studentService;
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+    private SimpleMeterRegistry meterRegistry;
+    private StudentDashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        studentService = mock(StudentService.class);
+        attendanceAnalyticsService = mock(AttendanceAnalyticsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        dashboardService = new StudentDashboardService(studentService, attendanceAnalyticsService, meterRegistry,
+                Duration.ofMillis(500));
+
+        Classe classe = new Classe();
+        classe.setId(1L);
+        classe.setName("Math A");
+        LearningMaterial material = new LearningMaterial();
+        material.setId(5L);
+        material.setClasse(classe);
+        material.setFileName("notes.pdf");
+
+        when(studentService.getClassSummariesByStudent(3L))
+                .thenReturn(List.of(new StudentDashboardDTO.ClassSummaryDTO(1L, "Math A", "10", "Ms Diallo")));
+        when(attendanceAnalyticsService.getStudentRate(eq(3L), isNull(), any(), any()))
+                .thenReturn(new AttendanceRateDTO(9, 10, 0.9));
+        when(studentService.getResultsByStudent(3L)).thenReturn(List.of(
+                new StudentResultDTO(7L, 2L, "Midterm", "Math", "Math A", LocalDate.of(2024, 10, 1), 81.0, null)));
+        when(studentService.getExamsByStudent(eq(3L), any(), any())).thenReturn(List.of());
+        when(studentService.getMaterialsByStudent(3L)).thenReturn(List.of(material));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    @Test
+    void returnsEverySection() {
+        StudentDashboardDTO dashboard = dashboardService.getDashboard(3L);
+
+        assertThat(dashboard.getClasses()).extracting(StudentDashboardDTO.ClassSummaryDTO::getTeacherName)
+                .containsExactly("Ms Diallo");
+        assertThat(dashboard.getAttendance().getRate()).isEqualTo(0.9);
+        assertThat(dashboard.getResults()).hasSize(1);
+        assertThat(dashboard.getUpcomingExams()).isEmpty();
+        assertThat(dashboard.getMaterials()).singleElement()
+                .satisfies(material -> assertThat(material.getClassName()).isEqualTo("Math A"));
+        assertThat(dashboard.getUnavailable()).isEmpty();
+    }
+
+    @Test
+    void sectionsAreReadConcurrently() {
+        // Each read waits until all five have started, which only happens when they run side by side
+        CountDownLatch started = new CountDownLatch(5);
+        doAnswer(withResult(started, List.of())).when(studentService).getClassSummariesByStudent(3L);
+        doAnswer(withResult(started, new AttendanceRateDTO(0, 0, 0))).when(attendanceAnalyticsService)
+                .getStudentRate(eq(3L), isNull(), any(), any());
+        doAnswer(withResult(started, List.of())).when(studentService).getResultsByStudent(3L);
+        doAnswer(withResult(started, List.of())).when(studentService).getExamsByStudent(eq(3L), any(), any());
+        doAnswer(withResult(started, List.of())).when(studentService).getMaterialsByStudent(3L);
+
+        StudentDashboardDTO dashboard = dashboardService.getDashboard(3L);
+
+        assertThat(dashboard.getUnavailable()).isEmpty();
+        assertThat(started.getCount()).isZero();
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void slowAndFailingSectionsAreLeftOutAndLogged(CapturedOutput output) {
+        when(studentService.getResultsByStudent(3L)).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return List.of();
+        });
+        when(studentService.getMaterialsByStudent(3L)).thenThrow(new RuntimeException("cache unavailable"));
+
+        long start = System.nanoTime();
+        StudentDashboardDTO dashboard = dashboardService.getDashboard(3L);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(dashboard.getResults()).isNull();
+        assertThat(dashboard.getMaterials()).isNull();
+        assertThat(dashboard.getUnavailable()).containsExactly("results", "materials");
+        assertThat(dashboard.getClasses()).hasSize(1);
+        assertThat(dashboard.getAttendance()).isNotNull();
+        assertThat(meterRegistry.get("students.dashboard.unavailable").tag("section", "results").counter().count())
+                .isEqualTo(1);
+        assertThat(output).contains("Dashboard section results missed the 500 ms deadline",
+                "Dashboard section materials failed", "java.lang.RuntimeException: cache unavailable");
+    }
+
+    private static Answer<Object> withResult(CountDownLatch started, Object result) {
+        return invocation -> {
+            started.countDown();
+            started.await();
+            return result;
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ExamCalendarEntryDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.ExamResult;
+import com.amfofana.school.entities.LearningMaterial;
+import com.amfofana.school.repositories.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Each student endpoint receives the authenticated id and must not reload the user
+class StudentServiceTest {
+
+    private static final Long STUDENT_ID = 7L;
+
+    private ClasseRepository classeRepository;
+    private AttendanceRepository attendanceRepository;
+    private ExamResultRepository examResultRepository;
+    private LearningMaterialRepository learningMaterialRepository;
+    private ExamRepository examRepository;
+    private LearningMaterialCache learningMaterialCache;
+    private ExamCalendarCache examCalendarCache;
+    private StudentService studentService;
+
+    @BeforeEach
+    void setUp() {
+        classeRepository = mock(ClasseRepository.class);
+        attendanceRepository = mock(AttendanceRepository.class);
+        examResultRepository = mock(ExamResultRepository.class);
+        learningMaterialRepository = mock(LearningMaterialRepository.class);
+        examRepository = mock(ExamRepository.class);
+        learningMaterialCache = new LearningMaterialCache(learningMaterialRepository, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(10));
+        examCalendarCache = new ExamCalendarCache(examRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+        studentService = new StudentService(classeRepository, attendanceRepository, examResultRepository,
+                learningMaterialCache, examCalendarCache, mock(TimetableEngine.class),
+                learningMaterialRepository, mock(MaterialBlobStore.class));
+    }
+
+    @Test
+    void classesIssueOneQuery() {
+        studentService.getClassesByStudent(STUDENT_ID);
+
+        verify(classeRepository, times(1)).findByStudents_Id(STUDENT_ID);
+        verifyNoMoreRepositoryInteractions();
+    }
+
+    @Test
+    void attendanceIssuesOneQuery() {
+        studentService.getAttendanceByStudent(STUDENT_ID);
+
+        verify(attendanceRepository, times(1)).findByStudent_Id(STUDENT_ID);
+        verifyNoMoreRepositoryInteractions();
+    }
+
+    @Test
+    void resultsIssueOneQueryForSubmittedRowsOnly() {
+        studentService.getResultsByStudent(STUDENT_ID);
+
+        verify(examResultRepository, times(1)).findResultsByStudent(STUDENT_ID, ExamResult.Status.SUBMITTED);
+        verifyNoMoreRepositoryInteractions();
+    }
+
+    @Test
+    void materialsForAllClassesLoadInOneQueryAndThenComeFromMemory() {
+        when(classeRepository.findIdsByStudentId(STUDENT_ID)).thenReturn(List.of(3L, 4L, 5L));
+        when(learningMaterialRepository.findByClasse_IdIn(Set.of(3L, 4L, 5L)))
+                .thenReturn(List.of(material(10L, 3L), material(11L, 5L), material(12L, 3L)));
+
+        List<LearningMaterial> first = studentService.getMaterialsByStudent(STUDENT_ID);
+        List<LearningMaterial> second = studentService.getMaterialsByStudent(STUDENT_ID);
+
+        assertThat(first).extracting(LearningMaterial::getId).containsExactly(10L, 12L, 11L);
+        assertThat(second).isEqualTo(first);
+        verify(classeRepository, times(2)).findIdsByStudentId(STUDENT_ID);
+        verify(learningMaterialRepository, times(1)).findByClasse_IdIn(anyCollection());
+        verifyNoMoreRepositoryInteractions();
+    }
+
+    @Test
+    void evictingAClassReloadsOnlyThatClass() {
+        when(classeRepository.findIdsByStudentId(STUDENT_ID)).thenReturn(List.of(3L, 4L));
+        when(learningMaterialRepository.findByClasse_IdIn(Set.of(3L, 4L))).thenReturn(List.of(material(10L, 3L)));
+        when(learningMaterialRepository.findByClasse_IdIn(Set.of(4L))).thenReturn(List.of(material(11L, 4L)));
+
+        studentService.getMaterialsByStudent(STUDENT_ID);
+        learningMaterialCache.evict(4L);
+        List<LearningMaterial> materials = studentService.getMaterialsByStudent(STUDENT_ID);
+
+        assertThat(materials).extracting(LearningMaterial::getId).containsExactly(10L, 11L);
+        verify(learningMaterialRepository, times(1)).findByClasse_IdIn(Set.of(4L));
+    }
+
+    // A write that commits and evicts while the old rows are being read must not leave them cached
+    @Test
+    void aLoadOverlappingAnEvictionIsNotKept() {
+        when(classeRepository.findIdsByStudentId(STUDENT_ID)).thenReturn(List.of(3L));
+        when(learningMaterialRepository.findByClasse_IdIn(Set.of(3L)))
+                .thenAnswer(invocation -> {
+                    learningMaterialCache.evict(3L);
+                    return List.of(material(10L, 3L));
+                })
+                .thenReturn(List.of(material(11L, 3L)));
+
+        studentService.getMaterialsByStudent(STUDENT_ID);
+        List<LearningMaterial> materials = studentService.getMaterialsByStudent(STUDENT_ID);
+
+        assertThat(materials).extracting(LearningMaterial::getId).containsExactly(11L);
+        verify(learningMaterialRepository, times(2)).findByClasse_IdIn(Set.of(3L));
+    }
+
+    // 2024-06-03 is a Monday
+    @Test
+    void calendarQueriesOnlyTheStudentsClassesForTheWeeksAskedFor() {
+        when(classeRepository.findIdsByStudentId(STUDENT_ID)).thenReturn(List.of(3L, 4L));
+        when(examRepository.findCalendarEntries(anyCollection(), any(), any())).thenReturn(List.of(
+                exam(20L, 4L, LocalDate.of(2024, 6, 12)),
+                exam(21L, 3L, LocalDate.of(2024, 6, 4)),
+                exam(22L, 3L, LocalDate.of(2024, 6, 16))));
+
+        List<ExamCalendarEntryDTO> calendar = studentService.getExamsByStudent(STUDENT_ID,
+                LocalDate.of(2024, 6, 4), LocalDate.of(2024, 6, 12));
+
+        assertThat(calendar).extracting(ExamCalendarEntryDTO::getId).containsExactly(21L, 20L);
+        verify(examRepository, times(1)).findCalendarEntries(Set.of(3L, 4L),
+                LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 16));
+    }
+
+    @Test
+    void calendarWeeksAreServedFromMemoryUntilEvicted() {
+        when(classeRepository.findIdsByStudentId(STUDENT_ID)).thenReturn(List.of(3L));
+        when(examRepository.findCalendarEntries(anyCollection(), any(), any()))
+                .thenReturn(List.of(exam(21L, 3L, LocalDate.of(2024, 6, 4))));
+
+        studentService.getExamsByStudent(STUDENT_ID, LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 9));
+        studentService.getExamsByStudent(STUDENT_ID, LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 6));
+        verify(examRepository, times(1)).findCalendarEntries(anyCollection(), any(), any());
+
+        examCalendarCache.evict(3L, LocalDate.of(2024, 6, 7));
+        studentService.getExamsByStudent(STUDENT_ID, LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 9));
+        verify(examRepository, times(2)).findCalendarEntries(anyCollection(), any(), any());
+    }
+
+    @Test
+    void calendarRejectsInvertedOrOversizedRanges() {
+        assertThatThrownBy(() -> studentService.getExamsByStudent(STUDENT_ID,
+                LocalDate.of(2024, 6, 9), LocalDate.of(2024, 6, 3)))
+                .hasMessage("Invalid date range");
+        assertThatThrownBy(() -> studentService.getExamsByStudent(STUDENT_ID,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2025, 6, 1)))
+                .hasMessageStartingWith("Date range too large");
+        verifyNoMoreRepositoryInteractions();
+    }
+
+    @Test
+    void downloadsAreLimitedToEnrolledStudents() {
+        when(learningMaterialRepository.findById(5L)).thenReturn(Optional.of(material(5L, 3L)));
+
+        assertThatThrownBy(() -> studentService.getMaterialDownload(STUDENT_ID, 5L))
+                .hasMessage("You are not enrolled in this material's class");
+
+        when(classeRepository.existsByIdAndStudents_Id(3L, STUDENT_ID)).thenReturn(true);
+        assertThatThrownBy(() -> studentService.getMaterialDownload(STUDENT_ID, 5L))
+                .hasMessage("Material has no stored file");
+    }
+
+    private static ExamCalendarEntryDTO exam(Long id, Long classId, LocalDate date) {
+        return new ExamCalendarEntryDTO(id, "Exam " + id, classId, "Class " + classId, "Math", date,
+                LocalTime.of(9, 0), LocalTime.of(11, 0));
+    }
+
+    private static LearningMaterial material(Long id, Long classId) {
+        Classe classe = new Classe();
+        classe.setId(classId);
+        return new LearningMaterial(id, classe, "https://files/" + id, null, null, null, null, LocalDateTime.now());
+    }
+
+    private void verifyNoMoreRepositoryInteractions() {
+        verifyNoMoreInteractions(classeRepository, attendanceRepository, examResultRepository,
+                learningMaterialRepository, examRepository);
+    }
+}
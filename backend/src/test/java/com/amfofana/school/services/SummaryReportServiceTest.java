@@ -0,0 +1,108 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.ReportDTO;
+import com.amfofana.school.entities.Classe;
+import com.amfofana.school.entities.Role;
+import com.amfofana.school.entities.Subject;
+import com.amfofana.school.entities.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class SummaryReportServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SummaryReportService summaryReportService;
+
+    @BeforeEach
+    void setUp() {
+        summaryReportService = new SummaryReportService(jdbcTemplate);
+        persistUser("s1", Role.STUDENT);
+        persistUser("s2", Role.STUDENT);
+        persistUser("t1", Role.TEACHER);
+        Classe classe = new Classe();
+        classe.setName("Class A");
+        entityManager.persist(classe);
+        Subject subject = new Subject();
+        subject.setName("Math");
+        entityManager.persist(subject);
+        entityManager.flush();
+    }
+
+    @Test
+    void reconcileSeedsEveryFigureFromTheDatabase() {
+        summaryReportService.reconcile();
+
+        ReportDTO report = summaryReportService.getSummaryReport();
+        assertThat(report.getTotalStudents()).isEqualTo(2);
+        assertThat(report.getTotalTeachers()).isEqualTo(1);
+        assertThat(report.getTotalAdmins()).isZero();
+        assertThat(report.getTotalClasses()).isEqualTo(1);
+        assertThat(report.getTotalExams()).isZero();
+        assertThat(report.getTotalSubjects()).isEqualTo(1);
+    }
+
+    @Test
+    void changesInsideATransactionCountOnlyOnceItCommits() {
+        summaryReportService.reconcile();
+
+        summaryReportService.userAdded(Role.STUDENT);
+        summaryReportService.classRemoved();
+        assertThat(summaryReportService.getSummaryReport().getTotalStudents()).isEqualTo(2);
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(summaryReportService.getSummaryReport().getTotalStudents()).isEqualTo(3);
+        assertThat(summaryReportService.getSummaryReport().getTotalClasses()).isZero();
+        cleanUpCommittedRows();
+    }
+
+    @Test
+    void rolledBackChangesAreNotCounted() {
+        summaryReportService.reconcile();
+
+        summaryReportService.subjectAdded();
+        TestTransaction.end();
+
+        assertThat(summaryReportService.getSummaryReport().getTotalSubjects()).isEqualTo(1);
+    }
+
+    @Test
+    void changesOutsideATransactionCountImmediately() {
+        TestTransaction.end();
+
+        summaryReportService.examAdded();
+        summaryReportService.userAdded(Role.ADMIN);
+
+        assertThat(summaryReportService.getSummaryReport().getTotalExams()).isEqualTo(1);
+        assertThat(summaryReportService.getSummaryReport().getTotalAdmins()).isEqualTo(1);
+    }
+
+    private void persistUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@school.com");
+        user.setPassword("x");
+        user.setRole(role);
+        entityManager.persist(user);
+    }
+
+    private void cleanUpCommittedRows() {
+        jdbcTemplate.update("DELETE FROM subjects");
+        jdbcTemplate.update("DELETE FROM classes");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+}
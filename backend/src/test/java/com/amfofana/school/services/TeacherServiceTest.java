@@ -0,0 +1,161 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.config.GradingProperties;
+import com.amfofana.school.dto.AttendanceDTO;
+import com.amfofana.school.dto.MarksDTO;
+import com.amfofana.school.dto.MarksSubmissionResultDTO;
+import com.amfofana.school.dto.ResultSubmissionDTO;
+import com.amfofana.school.repositories.ExamResultRepositoryCustom.SubmissionRow;
+import com.amfofana.school.repositories.*;
+import com.amfofana.school.utils.Pagination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TeacherServiceTest {
+
+    private ClasseRepository classeRepository;
+    private AttendanceRepository attendanceRepository;
+    private UserRepository userRepository;
+    private ExamRepository examRepository;
+    private ExamResultRepository examResultRepository;
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+    private ExamStatisticsService examStatisticsService;
+    private ContentVersions contentVersions;
+    private TeacherService teacherService;
+
+    @BeforeEach
+    void setUp() {
+        classeRepository = mock(ClasseRepository.class);
+        attendanceRepository = mock(AttendanceRepository.class);
+        userRepository = mock(UserRepository.class);
+        examRepository = mock(ExamRepository.class);
+        examResultRepository = mock(ExamResultRepository.class);
+        attendanceAnalyticsService = mock(AttendanceAnalyticsService.class);
+        examStatisticsService = mock(ExamStatisticsService.class);
+        contentVersions = mock(ContentVersions.class);
+        teacherService = new TeacherService(classeRepository, attendanceRepository, examResultRepository,
+                userRepository, examRepository, mock(LearningMaterialRepository.class),
+                mock(SubjectRepository.class), mock(PasswordEncoder.class),
+                mock(SecurityVersionService.class), new Pagination(500), mock(LearningMaterialCache.class),
+                mock(ExamCalendarCache.class), mock(SummaryReportService.class),
+                attendanceAnalyticsService, examStatisticsService,
+                new GradingPolicy(new GradingProperties()), mock(ExamClashDetector.class),
+                mock(MaterialBlobStore.class), contentVersions);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40, 400})
+    void submitAttendanceIssuesConstantNumberOfStatements(int rosterSize) {
+        AttendanceDTO dto = attendance(rosterSize);
+        when(classeRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<Long>(invocation.getArgument(0)));
+        when(attendanceRepository.insertAll(eq(1L), any(), anyList())).thenReturn(rosterSize);
+
+        int written = teacherService.submitAttendance(dto);
+
+        assertThat(written).isEqualTo(rosterSize);
+        verify(classeRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).findExistingIds(anyCollection());
+        verify(attendanceRepository, times(1)).insertAll(1L, dto.getDate(), dto.getRecords());
+        verify(attendanceAnalyticsService, times(1)).recordAttendance(1L, dto.getDate(), dto.getRecords());
+        verifyNoMoreInteractions(classeRepository, userRepository, attendanceRepository);
+    }
+
+    @Test
+    void submitAttendanceRejectsUnknownStudentsBeforeWriting() {
+        AttendanceDTO dto = attendance(3);
+        when(classeRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+
+        assertThatThrownBy(() -> teacherService.submitAttendance(dto))
+                .hasMessageContaining("Student not found");
+        verify(attendanceRepository, never()).insertAll(any(), any(), anyList());
+        verifyNoInteractions(attendanceAnalyticsService);
+    }
+
+    @Test
+    void submitMarksWritesWholeSheetWithOneUpsertAndLastScoreWins() {
+        MarksDTO dto = new MarksDTO();
+        dto.setExamId(9L);
+        dto.setMarks(List.of(mark(1L, 12.0), mark(2L, 15.5), mark(1L, 14.0)));
+        when(examRepository.existsById(9L)).thenReturn(true);
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        MarksSubmissionResultDTO expected = new MarksSubmissionResultDTO(1, 1, 0, 0);
+        when(examResultRepository.upsertMarks(eq(9L), anyMap())).thenReturn(expected);
+
+        assertThat(teacherService.submitMarks(dto)).isEqualTo(expected);
+
+        verify(examResultRepository, times(1)).upsertMarks(9L, Map.of(1L, 14.0, 2L, 15.5));
+        verifyNoMoreInteractions(examResultRepository);
+        verify(examStatisticsService).evict(List.of(9L));
+    }
+
+    @Test
+    void submitResultsIsOneGuardedStatementReportingSkippedIds() {
+        List<Long> ids = LongStream.rangeClosed(1, 500).boxed().toList();
+        List<SubmissionRow> rows = new ArrayList<>();
+        for (Long id : ids) {
+            if (id <= 490) {
+                rows.add(new SubmissionRow(id, 7L, 30L + id, true, true));
+            } else if (id <= 495) {
+                rows.add(new SubmissionRow(id, null, null, false, true));
+            } else {
+                rows.add(new SubmissionRow(id, null, null, false, false));
+            }
+        }
+        when(examResultRepository.submitDrafts(eq(ids), any(), anyMap())).thenReturn(rows);
+
+        ResultSubmissionDTO outcome = teacherService.submitResults(ids);
+
+        assertThat(outcome.getSubmitted()).isEqualTo(490);
+        assertThat(outcome.getAlreadySubmitted()).containsExactly(491L, 492L, 493L, 494L, 495L);
+        assertThat(outcome.getMissing()).containsExactly(496L, 497L, 498L, 499L, 500L);
+        verify(examResultRepository, times(1)).submitDrafts(eq(ids), any(), anyMap());
+        verifyNoMoreInteractions(examResultRepository);
+        verify(examStatisticsService).evict(Set.of(7L));
+        verify(contentVersions).studentsChanged(LongStream.rangeClosed(31, 520).boxed().collect(Collectors.toSet()));
+    }
+
+    @Test
+    void submittingNothingTouchesNothing() {
+        assertThat(teacherService.submitResults(List.of())).isEqualTo(new ResultSubmissionDTO(0, List.of(), List.of()));
+        verifyNoInteractions(examResultRepository, examStatisticsService);
+    }
+
+    private MarksDTO.MarkRecordDTO mark(Long studentId, double score) {
+        MarksDTO.MarkRecordDTO record = new MarksDTO.MarkRecordDTO();
+        record.setStudentId(studentId);
+        record.setScore(score);
+        return record;
+    }
+
+    private AttendanceDTO attendance(int rosterSize) {
+        AttendanceDTO dto = new AttendanceDTO();
+        dto.setClassId(1L);
+        dto.setDate(LocalDate.of(2024, 9, 2));
+        dto.setRecords(LongStream.rangeClosed(1, rosterSize).mapToObj(id -> {
+            AttendanceDTO.AttendanceRecordDTO record = new AttendanceDTO.AttendanceRecordDTO();
+            record.setStudentId(id);
+            record.setPresent(id % 7 != 0);
+            return record;
+        }).collect(Collectors.toList()));
+        return dto;
+    }
+}
@@ -0,0 +1,159 @@
+package com.amfofana.school.services;
+
+import com.amfofana.school.dto.TimetableSlotDTO;
+import com.amfofana.school.entities.Timetable;
+import com.amfofana.school.repositories.TimetableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.TUESDAY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimetableEngineTest {
+
+    private static final long CLASS_A = 1;
+    private static final long CLASS_B = 2;
+    private static final long TEACHER = 10;
+    private static final long OTHER_TEACHER = 11;
+
+    private final AtomicLong ids = new AtomicLong(100);
+    private TimetableEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        TimetableRepository repository = mock(TimetableRepository.class);
+        // An existing overlap in the table is loaded as it is
+        when(repository.findAllSlots()).thenReturn(List.of(
+                slot(1L, CLASS_A, TEACHER, MONDAY, "09:00", "10:00"),
+                slot(2L, CLASS_A, TEACHER, MONDAY, "09:30", "10:30")));
+        engine = new TimetableEngine(repository);
+        engine.load();
+    }
+
+    @Test
+    void rejectsOverlapsWithinTheClass() {
+        assertThatThrownBy(() -> place(null, CLASS_A, null, MONDAY, "10:15", "11:00"))
+                .hasMessageContaining("the class already has entry 2");
+        assertThat(place(null, CLASS_A, TEACHER, MONDAY, "10:30", "11:30").getId()).isNotNull();
+        assertThat(place(null, CLASS_A, TEACHER, TUESDAY, "09:00", "10:00").getId()).isNotNull();
+    }
+
+    @Test
+    void rejectsOverlapsForTheTeacherAcrossClasses() {
+        assertThatThrownBy(() -> place(null, CLASS_B, TEACHER, MONDAY, "08:30", "09:15"))
+                .hasMessageContaining("the teacher already has entry 1");
+        assertThat(place(null, CLASS_B, OTHER_TEACHER, MONDAY, "08:30", "09:15").getId()).isNotNull();
+    }
+
+    @Test
+    void anEntryMayBeMovedWithinItsOwnSlot() {
+        Timetable moved = place(2L, CLASS_A, TEACHER, MONDAY, "10:00", "11:00");
+
+        assertThat(moved.getId()).isEqualTo(2L);
+        assertThat(engine.getClassWeek(List.of(CLASS_A)))
+                .extracting(slot -> slot.getStartTime().toString())
+                .containsExactly("09:00", "10:00");
+    }
+
+    @Test
+    void aFailedWriteLeavesTheTimetableAsItWas() {
+        assertThatThrownBy(() -> engine.place(slot(2L, CLASS_A, TEACHER, TUESDAY, "12:00", "13:00"), () -> {
+            throw new RuntimeException("database down");
+        })).hasMessage("database down");
+
+        assertThat(engine.getClassWeek(List.of(CLASS_A))).extracting(TimetableSlotDTO::getDayOfWeek)
+                .containsExactly(MONDAY, MONDAY);
+        assertThatThrownBy(() -> place(null, CLASS_B, TEACHER, MONDAY, "10:00", "10:10"))
+                .hasMessageContaining("entry 2");
+    }
+
+    @Test
+    void rejectsEmptyOrInvertedSlots() {
+        assertThatThrownBy(() -> place(null, CLASS_B, null, MONDAY, "10:00", "10:00"))
+                .hasMessage("Start time must be before end time");
+        assertThatThrownBy(() -> place(null, CLASS_B, null, null, "10:00", "11:00"))
+                .hasMessage("Day, start time and end time are required");
+    }
+
+    @Test
+    void invertedRowsInTheTableAreSkippedAtStartup() {
+        TimetableRepository repository = mock(TimetableRepository.class);
+        when(repository.findAllSlots()).thenReturn(List.of(
+                slot(1L, CLASS_A, TEACHER, MONDAY, "09:00", "10:00"),
+                slot(2L, CLASS_A, TEACHER, MONDAY, "11:00", "11:00"),
+                slot(3L, CLASS_A, TEACHER, TUESDAY, "12:00", "10:00")));
+        TimetableEngine loaded = new TimetableEngine(repository);
+
+        loaded.load();
+
+        assertThat(loaded.getClassWeek(List.of(CLASS_A))).extracting(TimetableSlotDTO::getId).containsExactly(1L);
+        // Correcting a skipped row places it like a new one
+        Timetable fixed = loaded.place(slot(3L, CLASS_A, TEACHER, TUESDAY, "10:00", "12:00"), () -> {
+            Timetable saved = new Timetable();
+            saved.setId(3L);
+            return saved;
+        });
+        assertThat(fixed.getId()).isEqualTo(3L);
+        assertThat(loaded.getTeacherWeek(TEACHER)).extracting(TimetableSlotDTO::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void teacherAssignmentIsRefusedWhenTheClassesClash() {
+        place(null, CLASS_B, OTHER_TEACHER, MONDAY, "09:45", "10:45");
+
+        assertThatThrownBy(() -> engine.assignTeacher(CLASS_B, TEACHER, () -> {
+        })).hasMessageContaining("the teacher already has entry");
+        assertThat(engine.getTeacherWeek(OTHER_TEACHER)).hasSize(1);
+
+        engine.removeTeacher(TEACHER);
+        engine.assignTeacher(CLASS_B, TEACHER, () -> {
+        });
+        assertThat(engine.getTeacherWeek(TEACHER)).extracting(TimetableSlotDTO::getClassId).containsExactly(CLASS_B);
+        assertThat(engine.getTeacherWeek(OTHER_TEACHER)).isEmpty();
+    }
+
+    @Test
+    void deletedEntriesAndClassesFreeTheirSlots() {
+        engine.delete(1L, () -> {
+        });
+        assertThat(place(null, CLASS_B, TEACHER, MONDAY, "09:00", "09:30").getId()).isNotNull();
+
+        engine.removeClass(CLASS_A);
+        assertThat(engine.getClassWeek(List.of(CLASS_A))).isEmpty();
+        assertThat(engine.getTeacherWeek(TEACHER)).extracting(TimetableSlotDTO::getClassId).containsExactly(CLASS_B);
+    }
+
+    @Test
+    void weeklyViewIsOrderedAndReflectsSubjectRenames() {
+        place(null, CLASS_B, OTHER_TEACHER, MONDAY, "08:00", "09:00");
+        engine.renameSubject(7L, "Algebra");
+
+        List<TimetableSlotDTO> week = engine.getClassWeek(List.of(CLASS_A, CLASS_B));
+
+        assertThat(week).extracting(TimetableSlotDTO::getId).containsExactly(week.get(0).getId(), 1L, 2L);
+        assertThat(week).extracting(TimetableSlotDTO::getSubject).containsOnly("Algebra");
+        week.get(0).setSubject("changed by the caller");
+        assertThat(engine.getClassWeek(List.of(CLASS_B)).get(0).getSubject()).isEqualTo("Algebra");
+    }
+
+    private Timetable place(Long id, long classId, Long teacherId, DayOfWeek day, String start, String end) {
+        return engine.place(slot(id, classId, teacherId, day, start, end), () -> {
+            Timetable saved = new Timetable();
+            saved.setId(id != null ? id : ids.incrementAndGet());
+            return saved;
+        });
+    }
+
+    private static TimetableSlotDTO slot(Long id, long classId, Long teacherId, DayOfWeek day, String start, String end) {
+        return new TimetableSlotDTO(id, classId, teacherId, 7L, "Math", day, LocalTime.parse(start), LocalTime.parse(end));
+    }
+}
@@ -0,0 +1,91 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.AbsenteeDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attendance analytics over a synthetic school year: 5,000 students in classes of 25, a register every weekday,
+ * 93% presence with 5% of students chronically absent.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     "-Dexec.args=-cp %classpath com.amfofana.school.utils.AttendanceBitmapIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttendanceBitmapIndexBenchmark {
+
+    private static final int STUDENTS = 5_000;
+    private static final int CLASS_SIZE = 25;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 9, 2);
+    private static final LocalDate LAST_DAY = FIRST_DAY.plusYears(1).minusDays(1);
+
+    private AttendanceBitmapIndex index;
+    private long studentId;
+    private long classId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        AttendanceBitmapIndex.Loader loader = new AttendanceBitmapIndex.Loader();
+        for (LocalDate date = FIRST_DAY; !date.isAfter(LAST_DAY); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (long student = 1; student <= STUDENTS; student++) {
+                double presence = student % 20 == 0 ? 0.7 : 0.95;
+                loader.add(classOf(student), date, student, random.nextDouble() < presence);
+            }
+        }
+        index = loader.build();
+        studentId = 2_020;
+        classId = classOf(studentId);
+    }
+
+    @Benchmark
+    public AttendanceRateDTO studentRateForTheYear() {
+        return index.studentRate(studentId, classId, FIRST_DAY, LAST_DAY);
+    }
+
+    // Has to consider all 200 classes before finding the student's own
+    @Benchmark
+    public AttendanceRateDTO studentRateAcrossAllClasses() {
+        return index.studentRate(studentId, null, FIRST_DAY, LAST_DAY);
+    }
+
+    @Benchmark
+    public AttendanceRateDTO classRateForTheYear() {
+        return index.classRate(classId, FIRST_DAY, LAST_DAY);
+    }
+
+    @Benchmark
+    public List<AttendanceDayDTO> dailyPresenceForAMonth() {
+        return index.dailyPresence(classId, FIRST_DAY.plusMonths(3), FIRST_DAY.plusMonths(4));
+    }
+
+    @Benchmark
+    public List<AbsenteeDTO> chronicAbsenteesForTheYear() {
+        return index.chronicAbsentees(classId, FIRST_DAY, LAST_DAY, 0.1);
+    }
+
+    private static long classOf(long student) {
+        return (student - 1) / CLASS_SIZE + 1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AttendanceBitmapIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.AbsenteeDTO;
+import com.amfofana.school.dto.AttendanceDayDTO;
+import com.amfofana.school.dto.AttendanceRateDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttendanceBitmapIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 9, 2);
+    private static final Long CLASS_A = 1L;
+    private static final Long CLASS_B = 2L;
+
+    private AttendanceBitmapIndex index;
+
+    // Class A over four days: student 10 always present, 11 absent twice, 12 absent every day
+    @BeforeEach
+    void setUp() {
+        AttendanceBitmapIndex.Loader loader = new AttendanceBitmapIndex.Loader();
+        for (int day = 0; day < 4; day++) {
+            LocalDate date = MONDAY.plusDays(day);
+            loader.add(CLASS_A, date, 10L, true);
+            loader.add(CLASS_A, date, 11L, day % 2 == 0);
+            loader.add(CLASS_A, date, 12L, false);
+            loader.add(CLASS_B, date, 10L, day == 0);
+        }
+        index = loader.build();
+    }
+
+    @Test
+    void studentRateCountsOnlyRecordedDaysInRange() {
+        assertThat(index.studentRate(11L, CLASS_A, MONDAY, MONDAY.plusDays(3)))
+                .isEqualTo(new AttendanceRateDTO(2, 4, 0.5));
+        assertThat(index.studentRate(11L, CLASS_A, MONDAY, MONDAY.plusDays(1)))
+                .isEqualTo(new AttendanceRateDTO(1, 2, 0.5));
+        assertThat(index.studentRate(99L, CLASS_A, MONDAY, MONDAY.plusDays(3)))
+                .isEqualTo(new AttendanceRateDTO(0, 0, 0));
+    }
+
+    @Test
+    void studentRateWithoutClassSpansEveryClass() {
+        assertThat(index.studentRate(10L, null, MONDAY, MONDAY.plusDays(3)))
+                .isEqualTo(new AttendanceRateDTO(5, 8, 5 / 8.0));
+    }
+
+    @Test
+    void classRateIsOverStudentDays() {
+        assertThat(index.classRate(CLASS_A, MONDAY, MONDAY.plusDays(3)))
+                .isEqualTo(new AttendanceRateDTO(6, 12, 0.5));
+    }
+
+    @Test
+    void dailyPresenceListsEachRecordedDay() {
+        assertThat(index.dailyPresence(CLASS_A, MONDAY.plusDays(1), MONDAY.plusDays(2))).containsExactly(
+                new AttendanceDayDTO(MONDAY.plusDays(1), 1, 3),
+                new AttendanceDayDTO(MONDAY.plusDays(2), 2, 3));
+    }
+
+    @Test
+    void chronicAbsenteesAreThoseAtOrAboveTheThresholdWorstFirst() {
+        List<AbsenteeDTO> absentees = index.chronicAbsentees(CLASS_A, MONDAY, MONDAY.plusDays(3), 0.5);
+
+        assertThat(absentees).containsExactly(
+                new AbsenteeDTO(12L, 4, 4, 1.0),
+                new AbsenteeDTO(11L, 2, 4, 0.5));
+    }
+
+    @Test
+    void laterRecordsReplaceEarlierOnesForTheSameDay() {
+        index.record(CLASS_A, MONDAY, Map.of(12L, true, 13L, false));
+
+        assertThat(index.dailyPresence(CLASS_A, MONDAY, MONDAY))
+                .containsExactly(new AttendanceDayDTO(MONDAY, 3, 4));
+        assertThat(index.chronicAbsentees(CLASS_A, MONDAY, MONDAY, 1.0))
+                .containsExactly(new AbsenteeDTO(13L, 1, 1, 1.0));
+    }
+
+    @Test
+    void removedStudentsDisappearFromEveryClass() {
+        index.removeStudent(10L);
+
+        assertThat(index.studentRate(10L, null, MONDAY, MONDAY.plusDays(3)).getRecordedDays()).isZero();
+        assertThat(index.classRate(CLASS_A, MONDAY, MONDAY.plusDays(3)))
+                .isEqualTo(new AttendanceRateDTO(2, 8, 0.25));
+    }
+}
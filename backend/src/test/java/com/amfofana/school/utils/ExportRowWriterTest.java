@@ -0,0 +1,123 @@
+package com.amfofana.school.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportRowWriterTest {
+
+    private static final List<String> COLUMNS = List.of("id", "date", "name", "marks", "present");
+
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportRowWriter writer = new ExportRowWriter(ExportRowWriter.Format.NDJSON, COLUMNS, out)) {
+            writer.processRow(row(1L, Date.valueOf(LocalDate.of(2024, 5, 1)), "Ama \"A\"", 14.5, true));
+            writer.processRow(row(2L, null, "Kofi", null, false));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":1,"date":"2024-05-01","name":"Ama \\"A\\"","marks":14.5,"present":true}
+                {"id":2,"date":null,"name":"Kofi","marks":null,"present":false}
+                """);
+    }
+
+    @Test
+    void writesCsvWithHeaderAndQuotesOnlyWhenNeeded() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportRowWriter writer = new ExportRowWriter(ExportRowWriter.Format.CSV, COLUMNS, out)) {
+            writer.processRow(row(1L, Date.valueOf(LocalDate.of(2024, 5, 1)), "Mensah, \"Ama\"", 14.5, true));
+            writer.processRow(row(2L, null, "Kofi", null, false));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,date,name,marks,present\r\n"
+                        + "1,2024-05-01,\"Mensah, \"\"Ama\"\"\",14.5,true\r\n"
+                        + "2,,Kofi,,false\r\n");
+    }
+
+    // Runs in the small-heap surefire execution (-Xmx256m); the export below is larger than the whole heap, so it
+    // only passes if rows are written through rather than collected
+    @Test
+    @Tag("small-heap")
+    void heapStaysFlatForExportsLargerThanTheHeap() throws Exception {
+        long rows = 3_000_000;
+        CountingOutputStream out = new CountingOutputStream();
+        MutableRow row = new MutableRow();
+        ResultSet rs = row.asResultSet();
+
+        long before = usedHeapAfterGc();
+        long peak = 0;
+        try (ExportRowWriter writer = new ExportRowWriter(ExportRowWriter.Format.NDJSON, COLUMNS, out)) {
+            for (long i = 1; i <= rows; i++) {
+                row.id = i;
+                writer.processRow(rs);
+                if (i % 500_000 == 0) {
+                    peak = Math.max(peak, usedHeapAfterGc());
+                }
+            }
+            assertThat(writer.getRowCount()).isEqualTo(rows);
+        }
+
+        assertThat(out.count).isGreaterThan(Runtime.getRuntime().maxMemory());
+        assertThat(peak - before).isLessThan(16 * 1024 * 1024);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static ResultSet row(Object... values) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getObject") && args.length == 1 && args[0] instanceof Integer index) {
+                        return values[index - 1];
+                    }
+                    throw new SQLException("Unsupported: " + method.getName());
+                });
+    }
+
+    // A single reusable row so the test itself allocates nothing per row beyond what the writer does
+    private static class MutableRow {
+        private final Date date = Date.valueOf(LocalDate.of(2024, 5, 1));
+        private long id;
+
+        ResultSet asResultSet() {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> switch ((Integer) args[0]) {
+                        case 1 -> id;
+                        case 2 -> date;
+                        case 3 -> "Student number " + id + " with a reasonably long display name for padding";
+                        case 4 -> (id % 200) / 10.0;
+                        default -> id % 2 == 0;
+                    });
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
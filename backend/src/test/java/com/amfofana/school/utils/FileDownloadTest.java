@@ -0,0 +1,197 @@
+package com.amfofana.school.utils;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDownloadTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-05-01T10:15:30Z");
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sendsTheWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = send(download("0123456789"), get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        assertThat(response.getHeader("ETag")).isEqualTo(ETAG);
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(response.getDateHeader("Last-Modified")).isEqualTo(MODIFIED.toEpochMilli());
+        assertThat(response.getHeader("Content-Disposition")).contains("notes.txt");
+    }
+
+    @Test
+    void servesSingleByteRanges() throws Exception {
+        FileDownload download = download("0123456789");
+
+        MockHttpServletResponse middle = send(download, get("Range", "bytes=2-4"));
+        assertThat(middle.getStatus()).isEqualTo(206);
+        assertThat(middle.getHeader("Content-Range")).isEqualTo("bytes 2-4/10");
+        assertThat(middle.getContentAsString()).isEqualTo("234");
+
+        assertThat(send(download, get("Range", "bytes=7-")).getContentAsString()).isEqualTo("789");
+        assertThat(send(download, get("Range", "bytes=-2")).getContentAsString()).isEqualTo("89");
+        assertThat(send(download, get("Range", "bytes=8-100")).getHeader("Content-Range")).isEqualTo("bytes 8-9/10");
+    }
+
+    @Test
+    void rejectsUnsatisfiableRangesAndIgnoresOthers() throws Exception {
+        FileDownload download = download("0123456789");
+
+        MockHttpServletResponse beyond = send(download, get("Range", "bytes=10-"));
+        assertThat(beyond.getStatus()).isEqualTo(416);
+        assertThat(beyond.getHeader("Content-Range")).isEqualTo("bytes */10");
+
+        assertThat(send(download, get("Range", "bytes=0-1,4-5")).getStatus()).isEqualTo(200);
+        assertThat(send(download, get("Range", "pages=1")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void answersNotModifiedForMatchingValidators() throws Exception {
+        FileDownload download = download("0123456789");
+
+        assertThat(send(download, get("If-None-Match", "\"v0\", W/\"v1\"")).getStatus()).isEqualTo(304);
+        assertThat(send(download, get("If-None-Match", "\"v0\"")).getStatus()).isEqualTo(200);
+        assertThat(send(download, get("If-Modified-Since", MODIFIED.plusSeconds(1).toEpochMilli())).getStatus())
+                .isEqualTo(304);
+        assertThat(send(download, get("If-Modified-Since", MODIFIED.minusSeconds(60).toEpochMilli())).getStatus())
+                .isEqualTo(200);
+    }
+
+    @Test
+    void ifRangeFallsBackToTheWholeFileForAnotherVersion() throws Exception {
+        FileDownload download = download("0123456789");
+
+        MockHttpServletRequest current = get("Range", "bytes=2-4");
+        current.addHeader("If-Range", ETAG);
+        assertThat(send(download, current).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest stale = get("Range", "bytes=2-4");
+        stale.addHeader("If-Range", "\"v0\"");
+        assertThat(send(download, stale).getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void handsLargeRangesToTomcatSendfile() throws Exception {
+        Path file = sparseFile(1024 * 1024);
+        MockHttpServletRequest request = get("Range", "bytes=1000-");
+        request.setAttribute(FileDownload.SENDFILE_SUPPORT, Boolean.TRUE);
+
+        MockHttpServletResponse response = send(new FileDownload(file, "big.bin", null, 1024 * 1024, MODIFIED, ETAG),
+                request);
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getContentLengthLong()).isEqualTo(1024 * 1024 - 1000);
+        assertThat(request.getAttribute(FileDownload.SENDFILE_FILENAME)).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute(FileDownload.SENDFILE_START)).isEqualTo(1000L);
+        assertThat(request.getAttribute(FileDownload.SENDFILE_END)).isEqualTo(1024L * 1024);
+    }
+
+    // Runs in the small-heap surefire execution (-Xmx256m), so a 1 GB file only goes through if it is never buffered
+    @Test
+    @Tag("small-heap")
+    void streamsAFileFourTimesLargerThanTheHeap() throws Exception {
+        long size = 1L << 30;
+        Path file = sparseFile(size);
+        FileDownload download = FileDownload.of(file, "lecture.mp4", "video/mp4", ETAG);
+
+        long before = usedHeapAfterGc();
+        CountingResponse whole = new CountingResponse();
+        download.send(get(), whole);
+        CountingResponse resumed = new CountingResponse();
+        download.send(get("Range", "bytes=" + (size / 2) + "-"), resumed);
+        long after = usedHeapAfterGc();
+
+        assertThat(size).isGreaterThan(Runtime.getRuntime().maxMemory());
+        assertThat(whole.out.count).isEqualTo(size);
+        assertThat(resumed.getStatus()).isEqualTo(206);
+        assertThat(resumed.out.count).isEqualTo(size / 2);
+        assertThat(after - before).isLessThan(16 * 1024 * 1024);
+    }
+
+    private FileDownload download(String content) throws Exception {
+        Path file = Files.writeString(dir.resolve("notes.txt"), content, StandardCharsets.UTF_8);
+        return new FileDownload(file, "notes.txt", "text/plain", Files.size(file), MODIFIED, ETAG);
+    }
+
+    private Path sparseFile(long size) throws Exception {
+        Path file = dir.resolve("big.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+        }
+        return file;
+    }
+
+    private static MockHttpServletResponse send(FileDownload download, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        download.send(request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/student/materials/1");
+    }
+
+    private static MockHttpServletRequest get(String header, Object value) {
+        MockHttpServletRequest request = get();
+        request.addHeader(header, value);
+        return request;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Counts the body instead of keeping it
+    private static class CountingResponse extends MockHttpServletResponse {
+
+        private final CountingServletOutputStream out = new CountingServletOutputStream();
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+
+    private static class CountingServletOutputStream extends ServletOutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.entities.Grade;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GradeBandsTest {
+
+    private final GradeBands bands = new GradeBands(Map.of(
+            Grade.AA, 90.0, Grade.BA, 85.0, Grade.BB, 80.0, Grade.CB, 75.0,
+            Grade.CC, 70.0, Grade.DC, 65.0, Grade.DD, 60.0));
+
+    @Test
+    void thresholdsAreInclusiveLowerBounds() {
+        assertThat(bands.gradeFor(100)).isEqualTo(Grade.AA);
+        assertThat(bands.gradeFor(90)).isEqualTo(Grade.AA);
+        assertThat(bands.gradeFor(89.99)).isEqualTo(Grade.BA);
+        assertThat(bands.gradeFor(72)).isEqualTo(Grade.CC);
+        assertThat(bands.gradeFor(60)).isEqualTo(Grade.DD);
+        assertThat(bands.gradeFor(59.5)).isEqualTo(Grade.FF);
+        assertThat(bands.gradeFor(0)).isEqualTo(Grade.FF);
+    }
+
+    @Test
+    void gradesLeftOutAreNeverAwarded() {
+        GradeBands passFail = new GradeBands(Map.of(Grade.CC, 50.0));
+
+        assertThat(passFail.gradeFor(99)).isEqualTo(Grade.CC);
+        assertThat(passFail.gradeFor(49)).isEqualTo(Grade.FF);
+        assertThat(passFail.bands()).extracting(GradeBands.Band::grade).containsExactly(Grade.CC);
+    }
+
+    @Test
+    void rejectsBandsThatDoNotDecrease() {
+        assertThatThrownBy(() -> new GradeBands(Map.of(Grade.AA, 80.0, Grade.BA, 85.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GradeBands(Map.of(Grade.AA, 80.0, Grade.BA, 80.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsAThresholdForFF() {
+        assertThatThrownBy(() -> new GradeBands(Map.of(Grade.AA, 90.0, Grade.FF, 0.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
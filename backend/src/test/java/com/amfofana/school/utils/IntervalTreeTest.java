@@ -0,0 +1,83 @@
+package com.amfofana.school.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntervalTreeTest {
+
+    private record Interval(int start, int end, long id) {
+        boolean overlaps(int otherStart, int otherEnd) {
+            return start < otherEnd && otherStart < end;
+        }
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(540, 600, 1, "09:00-10:00");
+
+        assertThat(tree.findOverlap(600, 660)).isNull();
+        assertThat(tree.findOverlap(480, 540)).isNull();
+        assertThat(tree.findOverlap(599, 660)).isEqualTo("09:00-10:00");
+        assertThat(tree.findOverlap(550, 560)).isEqualTo("09:00-10:00");
+        assertThat(tree.findOverlap(500, 700)).isEqualTo("09:00-10:00");
+    }
+
+    @Test
+    void rejectsEmptyIntervals() {
+        assertThatThrownBy(() -> new IntervalTree<String>().insert(600, 600, 1, "empty"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void removesByStartAndId() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(540, 600, 1, "first");
+        tree.insert(540, 620, 2, "second");
+
+        assertThat(tree.remove(540, 3)).isFalse();
+        assertThat(tree.remove(540, 1)).isTrue();
+        assertThat(tree.values()).containsExactly("second");
+        assertThat(tree.size()).isEqualTo(1);
+    }
+
+    // Random inserts and removals, checked against a brute-force scan after every step
+    @Test
+    void agreesWithALinearScanAndStaysBalanced() {
+        Random random = new Random(7);
+        IntervalTree<Interval> tree = new IntervalTree<>();
+        List<Interval> intervals = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                Interval removed = intervals.remove(random.nextInt(intervals.size()));
+                assertThat(tree.remove(removed.start(), removed.id())).isTrue();
+            } else {
+                int start = random.nextInt(10_000);
+                Interval added = new Interval(start, start + 1 + random.nextInt(60), step);
+                tree.insert(added.start(), added.end(), added.id(), added);
+                intervals.add(added);
+            }
+
+            int queryStart = random.nextInt(10_000);
+            int queryEnd = queryStart + 1 + random.nextInt(60);
+            boolean expected = intervals.stream().anyMatch(interval -> interval.overlaps(queryStart, queryEnd));
+            Interval found = tree.findOverlap(queryStart, queryEnd);
+            assertThat(found != null).isEqualTo(expected);
+            if (found != null) {
+                assertThat(found.overlaps(queryStart, queryEnd)).isTrue();
+            }
+            assertThat(tree.findAllOverlaps(queryStart, queryEnd)).containsExactlyInAnyOrderElementsOf(
+                    intervals.stream().filter(interval -> interval.overlaps(queryStart, queryEnd)).toList());
+        }
+        assertThat(tree.size()).isEqualTo(intervals.size());
+        assertThat(tree.values()).isSortedAccordingTo((a, b) -> Integer.compare(a.start(), b.start()));
+        // An AVL tree is at most ~1.44 log2(n) high
+        assertThat(tree.height()).isLessThanOrEqualTo((int) Math.ceil(1.45 * (Math.log(tree.size() + 2) / Math.log(2))));
+    }
+}
@@ -0,0 +1,77 @@
+package com.amfofana.school.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost as seen by JwtRequestFilter.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     "-Dexec.args=-cp %classpath com.amfofana.school.utils.JwtUtilBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET =
+            "yZnsCIqXIOcX9uI1elv9Yg1U+dPYipDtI4FtEC2E5R7WZCXk1X7nDxISM/hJmXzEFw53kzNAxP7ILsmfVLfZjQ==";
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaximumSize", 10000L);
+        jwtUtil.init();
+
+        userDetails = new User("student@school.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_STUDENT")));
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    // What the filter used to do: decode the key and build a parser for each of three parses
+    @Benchmark
+    public boolean perRequestParsing() {
+        String username = legacyClaims(token).getSubject();
+        return username.equals(userDetails.getUsername())
+                && legacyClaims(token).getSubject().equals(userDetails.getUsername())
+                && legacyClaims(token).getExpiration().getTime() > System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public boolean cachedVerification() {
+        Claims claims = jwtUtil.getAllClaimsFromToken(token);
+        return jwtUtil.validateToken(claims, userDetails);
+    }
+
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
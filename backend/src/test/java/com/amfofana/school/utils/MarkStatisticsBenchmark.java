@@ -0,0 +1,66 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.entities.Grade;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full recomputation of the statistics of one exam taken by 1,000 students, and of a subject with 40 such exams.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     "-Dexec.args=-cp %classpath com.amfofana.school.utils.MarkStatisticsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkStatisticsBenchmark {
+
+    private double[] examMarks;
+    private int[] examGrades;
+    private double[] subjectMarks;
+    private int[] subjectGrades;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        examMarks = new double[1_000];
+        examGrades = new int[examMarks.length];
+        fill(random, examMarks, examGrades);
+        subjectMarks = new double[40_000];
+        subjectGrades = new int[subjectMarks.length];
+        fill(random, subjectMarks, subjectGrades);
+    }
+
+    @Benchmark
+    public ExamStatisticsDTO examOfAThousandStudents() {
+        return MarkStatistics.compute(examMarks, examGrades);
+    }
+
+    @Benchmark
+    public ExamStatisticsDTO subjectOfFortyExams() {
+        return MarkStatistics.compute(subjectMarks, subjectGrades);
+    }
+
+    // Marks out of 100, normally spread around 62; one in ten results is not graded yet
+    private static void fill(Random random, double[] marks, int[] grades) {
+        Grade[] scale = Grade.values();
+        for (int i = 0; i < marks.length; i++) {
+            marks[i] = Math.max(0, Math.min(100, Math.round(62 + random.nextGaussian() * 15)));
+            grades[i] = random.nextInt(10) == 0
+                    ? MarkStatistics.UNGRADED
+                    : Math.min(scale.length - 1, (int) ((100 - marks[i]) / 10));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MarkStatisticsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
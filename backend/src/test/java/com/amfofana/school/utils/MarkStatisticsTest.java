@@ -0,0 +1,73 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.ExamStatisticsDTO;
+import com.amfofana.school.entities.Grade;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MarkStatisticsTest {
+
+    private static final int UNGRADED = MarkStatistics.UNGRADED;
+
+    @Test
+    void summarizesMarksAndGrades() {
+        double[] marks = {40, 10, 30, 20, 50};
+        int[] grades = {Grade.AA.ordinal(), Grade.FF.ordinal(), Grade.BB.ordinal(), UNGRADED, Grade.AA.ordinal()};
+
+        ExamStatisticsDTO statistics = MarkStatistics.compute(marks, grades);
+
+        assertThat(statistics.getCount()).isEqualTo(5);
+        assertThat(statistics.getMean()).isEqualTo(30.0);
+        assertThat(statistics.getMedian()).isEqualTo(30.0);
+        assertThat(statistics.getStandardDeviation()).isCloseTo(Math.sqrt(200), within(1e-9));
+        assertThat(statistics.getMin()).isEqualTo(10.0);
+        assertThat(statistics.getMax()).isEqualTo(50.0);
+        assertThat(statistics.getP10()).isCloseTo(14.0, within(1e-9));
+        assertThat(statistics.getP25()).isEqualTo(20.0);
+        assertThat(statistics.getP75()).isEqualTo(40.0);
+        assertThat(statistics.getP90()).isCloseTo(46.0, within(1e-9));
+        assertThat(statistics.getGrades()).containsKeys(Grade.values())
+                .containsEntry(Grade.AA, 2).containsEntry(Grade.BB, 1).containsEntry(Grade.FF, 1)
+                .containsEntry(Grade.CC, 0);
+        assertThat(statistics.getUngraded()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesTheCallersMarksUnsorted() {
+        double[] marks = {3, 1, 2};
+
+        MarkStatistics.compute(marks, new int[]{UNGRADED, UNGRADED, UNGRADED});
+
+        assertThat(marks).containsExactly(3, 1, 2);
+    }
+
+    @Test
+    void interpolatesPercentilesOfAnEvenCount() {
+        ExamStatisticsDTO statistics = MarkStatistics.compute(new double[]{1, 2, 3, 4},
+                new int[]{UNGRADED, UNGRADED, UNGRADED, UNGRADED});
+
+        assertThat(statistics.getMedian()).isEqualTo(2.5);
+        assertThat(statistics.getP25()).isEqualTo(1.75);
+    }
+
+    @Test
+    void singleMarkHasNoSpread() {
+        ExamStatisticsDTO statistics = MarkStatistics.compute(new double[]{17}, new int[]{Grade.CB.ordinal()});
+
+        assertThat(statistics.getStandardDeviation()).isZero();
+        assertThat(statistics.getP10()).isEqualTo(17.0);
+        assertThat(statistics.getP90()).isEqualTo(17.0);
+    }
+
+    @Test
+    void emptyExamReportsZeroCountAndNoFigures() {
+        ExamStatisticsDTO statistics = MarkStatistics.compute(new double[0], new int[0]);
+
+        assertThat(statistics.getCount()).isZero();
+        assertThat(statistics.getMean()).isNull();
+        assertThat(statistics.getMedian()).isNull();
+        assertThat(statistics.getGrades()).hasSize(Grade.values().length).containsValue(0);
+    }
+}
@@ -0,0 +1,48 @@
+package com.amfofana.school.utils;
+
+import com.amfofana.school.dto.CursorPageDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaginationTest {
+
+    private final Pagination pagination = new Pagination(3);
+
+    @Test
+    void requestsOneExtraRowAndClampsToTheMaximum() {
+        Pageable pageable = pagination.keyset(50);
+
+        assertThat(pageable.getPageSize()).isEqualTo(4);
+        assertThat(pageable.getSort().getOrderFor("id")).isNotNull();
+        assertThat(pagination.keyset(2).getPageSize()).isEqualTo(3);
+        assertThat(pagination.keyset(null).getPageSize()).isEqualTo(4);
+    }
+
+    @Test
+    void nextCursorPointsAfterTheLastReturnedRow() {
+        CursorPageDTO<Long> first = pagination.page(List.of(10L, 11L, 12L, 13L), null, Function.identity());
+
+        assertThat(first.getItems()).containsExactly(10L, 11L, 12L);
+        assertThat(pagination.afterId(first.getNextCursor())).isEqualTo(12L);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPageDTO<Long> last = pagination.page(List.of(13L), null, Function.identity());
+
+        assertThat(last.getItems()).containsExactly(13L);
+        assertThat(last.getNextCursor()).isNull();
+        assertThat(pagination.afterId(null)).isZero();
+    }
+
+    @Test
+    void rejectsGarbageCursors() {
+        assertThatThrownBy(() -> pagination.afterId("not a cursor")).hasMessage("Invalid cursor");
+    }
+}
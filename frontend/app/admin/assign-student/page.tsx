@@ -22,7 +22,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 
 const formSchema = z.object({
@@ -56,11 +56,11 @@ export default function AssignStudentPage() {
   const fetchStudentsAndClasses = async () => {
     try {
       const [studentsResponse, classesResponse] = await Promise.all([
-        api.get('/admin/users?role=STUDENT'),
-        api.get('/admin/classes'),
+        getAll('/admin/users?role=STUDENT'),
+        getAll('/admin/classes'),
       ]);
-      setStudents(studentsResponse.data);
-      setClasses(classesResponse.data);
+      setStudents(studentsResponse);
+      setClasses(classesResponse);
     } catch (error) {
       toast.error('Failed to fetch data');
       console.log(error);
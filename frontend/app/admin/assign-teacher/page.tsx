@@ -22,7 +22,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 
 const formSchema = z.object({
@@ -56,11 +56,11 @@ export default function AssignTeacherPage() {
   const fetchTeachersAndClasses = async () => {
     try {
       const [teachersResponse, classesResponse] = await Promise.all([
-        api.get('/admin/users?role=TEACHER'),
-        api.get('/admin/classes'),
+        getAll('/admin/users?role=TEACHER'),
+        getAll('/admin/classes'),
       ]);
-      setTeachers(teachersResponse.data);
-      setClasses(classesResponse.data);
+      setTeachers(teachersResponse);
+      setClasses(classesResponse);
     } catch (error) {
       toast.error('Failed to fetch data');
       console.log(error);
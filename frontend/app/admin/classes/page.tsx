@@ -25,7 +25,7 @@ import {
   TableHeader,
   TableRow,
 } from '@/components/ui/table';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import { zodResolver } from '@hookform/resolvers/zod';
 import {
   startTransition,
@@ -69,13 +69,13 @@ export default function ClassesPage() {
   // Stable fetch function
   const fetchClasses = useCallback(async () => {
     try {
-      const response = await api.get('/admin/classes');
+      const response = await getAll('/admin/classes');
       // avoid updating state if unmounted
       if (!isMounted.current) return;
 
       // mark update as non-urgent so React won't warn about sync setState in effect
       startTransition(() => {
-        setClasses(response.data);
+        setClasses(response);
       });
     } catch (error) {
       if (!isMounted.current) return;
@@ -281,7 +281,7 @@ export default function ClassesPage() {
 // } from '@/components/ui/form';
 // import { Input } from '@/components/ui/input';
 // import { toast } from 'sonner';
-// import api from '@/lib/api';
+// import api, { getAll } from '@/lib/api';
 // import EditClassForm from '@/components/forms/EditClassForm';
 // import DeleteClassAlert from '@/components/forms/DeleteClassAlert';
 
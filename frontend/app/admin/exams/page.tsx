@@ -17,7 +17,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 
 interface User {
@@ -50,11 +50,11 @@ export default function AdminExamsPage() {
   const fetchInitialData = async () => {
     try {
       const [teachersRes, classesRes] = await Promise.all([
-        api.get('/admin/users?role=TEACHER'),
-        api.get('/admin/classes'),
+        getAll('/admin/users?role=TEACHER'),
+        getAll('/admin/classes'),
       ]);
-      setTeachers(teachersRes.data);
-      setClasses(classesRes.data);
+      setTeachers(teachersRes);
+      setClasses(classesRes);
     } catch (error) {
       toast.error('Failed to fetch initial data');
       console.log(error);
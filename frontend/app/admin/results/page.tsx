@@ -13,7 +13,7 @@ import {
 import { Input } from '@/components/ui/input';
 import { Button } from '@/components/ui/button';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import { getAll } from '@/lib/api';
 
 export default function AdminResultsPage() {
   const [results, setResults] = useState<any[]>([]);
@@ -25,8 +25,8 @@ export default function AdminResultsPage() {
       url += `?studentId=${studentId}`;
     }
     try {
-      const response = await api.get(url);
-      setResults(response.data);
+      const response = await getAll(url);
+      setResults(response);
     } catch (error) {
       toast.error('Failed to fetch results');
     }
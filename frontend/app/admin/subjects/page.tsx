@@ -29,7 +29,7 @@ import {
 } from '@/components/ui/form';
 import { Input } from '@/components/ui/input';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 
 const formSchema = z.object({
   name: z.string().min(1, { message: 'Subject name is required' }),
@@ -54,8 +54,8 @@ export default function SubjectsPage() {
 
   const fetchSubjects = async () => {
     try {
-      const response = await api.get('/admin/subjects');
-      setSubjects(response.data);
+      const response = await getAll('/admin/subjects');
+      setSubjects(response);
     } catch (error) {
       toast.error('Failed to fetch subjects');
       console.log(error);
@@ -36,7 +36,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 
 const formSchema = z.object({
   classId: z.string().min(1, { message: 'Class is required' }),
@@ -85,8 +85,8 @@ export default function TimetablePage() {
 
   const fetchTimetable = async () => {
     try {
-      const response = await api.get('/admin/timetables');
-      setTimetable(response.data);
+      const response = await getAll('/admin/timetables');
+      setTimetable(response);
     } catch (error) {
       toast.error('Failed to fetch timetable');
       console.log(error);
@@ -96,11 +96,11 @@ export default function TimetablePage() {
   const fetchInitialData = async () => {
     try {
       const [classesRes, subjectsRes] = await Promise.all([
-        api.get('/admin/classes'),
-        api.get('/admin/subjects'),
+        getAll('/admin/classes'),
+        getAll('/admin/subjects'),
       ]);
-      setClasses(classesRes.data);
-      setSubjects(subjectsRes.data);
+      setClasses(classesRes);
+      setSubjects(subjectsRes);
     } catch (error) {
       toast.error('Failed to fetch initial data');
       console.log(error);
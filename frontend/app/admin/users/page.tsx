@@ -36,7 +36,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import EditUserForm from '@/components/forms/EditUserForm';
 import DeleteUserAlert from '@/components/forms/DeleteUserAlert';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
@@ -104,8 +104,8 @@ export default function UsersPage() {
 
   const fetchUsers = async () => {
     try {
-      const response = await api.get('/admin/users');
-      setUsers(response.data);
+      const response = await getAll('/admin/users');
+      setUsers(response);
     } catch (error) {
       toast.error('Failed to fetch users');
       console.log(error);
@@ -1,9 +1,37 @@
 'use client';
 
+import { useEffect, useState } from 'react';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 import { BookOpen, CheckCircle, FileText } from 'lucide-react';
+import { toast } from 'sonner';
+import api from '@/lib/api';
+
+interface Dashboard {
+  classes: { id: number; name: string }[] | null;
+  attendance: { presentDays: number; recordedDays: number; rate: number } | null;
+  materials: { id: number }[] | null;
+  unavailable: string[];
+}
 
 export default function StudentDashboard() {
+  const [dashboard, setDashboard] = useState<Dashboard | null>(null);
+
+  useEffect(() => {
+    const fetchDashboard = async () => {
+      try {
+        const response = await api.get('/student/dashboard');
+        setDashboard(response.data);
+      } catch (error) {
+        toast.error('Failed to fetch dashboard');
+      }
+    };
+
+    fetchDashboard();
+  }, []);
+
+  // Sections the server could not load in time come back as null
+  const attendance = dashboard?.attendance;
+
   return (
     <div className="p-8">
       <h1 className="text-3xl font-bold mb-8">Student Dashboard</h1>
@@ -16,7 +44,7 @@ export default function StudentDashboard() {
             <BookOpen className="h-4 w-4 text-muted-foreground" />
           </CardHeader>
           <CardContent>
-            <div className="text-2xl font-bold">6</div>
+            <div className="text-2xl font-bold">{dashboard?.classes?.length ?? '—'}</div>
             <p className="text-xs text-muted-foreground">
               courses this semester
             </p>
@@ -30,23 +58,25 @@ export default function StudentDashboard() {
             <CheckCircle className="h-4 w-4 text-muted-foreground" />
           </CardHeader>
           <CardContent>
-            <div className="text-2xl font-bold">95%</div>
+            <div className="text-2xl font-bold">
+              {attendance ? `${Math.round(attendance.rate * 100)}%` : '—'}
+            </div>
             <p className="text-xs text-muted-foreground">
-              Great work!
+              {attendance ? `${attendance.presentDays} of ${attendance.recordedDays} days present` : 'not available'}
             </p>
           </CardContent>
         </Card>
         <Card>
           <CardHeader className="flex flex-row items-center justify-between space-y-0 pb-2">
             <CardTitle className="text-sm font-medium">
-              Downloaded Materials
+              Learning Materials
             </CardTitle>
             <FileText className="h-4 w-4 text-muted-foreground" />
           </CardHeader>
           <CardContent>
-            <div className="text-2xl font-bold">15</div>
+            <div className="text-2xl font-bold">{dashboard?.materials?.length ?? '—'}</div>
             <p className="text-xs text-muted-foreground">
-              files downloaded
+              files available
             </p>
           </CardContent>
         </Card>
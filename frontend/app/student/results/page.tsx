@@ -14,7 +14,10 @@ import api from '@/lib/api';
 
 interface ExamResult {
   id: number;
-  exam: { name: string; classe: { name: string } };
+  examName: string;
+  subject: string;
+  className: string;
+  date: string;
   marks: number;
   grade: string | null;
 }
@@ -50,8 +53,8 @@ export default function StudentResultsPage() {
         <TableBody>
           {results.map((result) => (
             <TableRow key={result.id}>
-              <TableCell>{result.exam.name}</TableCell>
-              <TableCell>{result.exam.classe.name}</TableCell>
+              <TableCell>{result.examName}</TableCell>
+              <TableCell>{result.className}</TableCell>
               <TableCell>{result.marks}</TableCell>
               <TableCell>{result.grade || 'N/A'}</TableCell>
             </TableRow>
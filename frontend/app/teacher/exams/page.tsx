@@ -36,7 +36,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 
 const formSchema = z.object({
   subjectId: z.string().min(1, { message: 'Subject is required' }),
@@ -87,11 +87,11 @@ export default function TeacherExamsPage() {
   const fetchInitialData = async () => {
     try {
       const [examsRes, subjectsRes, classesRes] = await Promise.all([
-        api.get('/teacher/exams'),
+        getAll('/teacher/exams'),
         api.get('/teacher/subjects'),
         api.get('/teacher/classes'),
       ]);
-      setExams(examsRes.data);
+      setExams(examsRes);
       setSubjects(subjectsRes.data);
       setClasses(classesRes.data);
     } catch (error) {
@@ -26,7 +26,7 @@ import {
 } from '@/components/ui/select';
 import { Input } from '@/components/ui/input';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import ResultForm from '@/components/forms/ResultForm';
 
 export default function TeacherResultsPage() {
@@ -51,8 +51,8 @@ export default function TeacherResultsPage() {
     }
 
     try {
-      const response = await api.get(`${url}?${params.toString()}`);
-      setResults(response.data);
+      const response = await getAll(`${url}?${params.toString()}`);
+      setResults(response);
     } catch (error) {
       toast.error('Failed to fetch results');
       console.error(error);
@@ -95,8 +95,15 @@ export default function TeacherResultsPage() {
 
     const toastId = toast.loading('Submitting results...');
     try {
-      await api.post('/teacher/results/submit', draftResultIds);
-      toast.success('Results submitted successfully', { id: toastId });
+      const response = await api.post('/teacher/results/submit', draftResultIds);
+      const { submitted, alreadySubmitted, missing } = response.data;
+      const skipped = alreadySubmitted.length + missing.length;
+      toast.success(
+        skipped > 0
+          ? `${submitted} results submitted, ${skipped} skipped`
+          : `${submitted} results submitted`,
+        { id: toastId }
+      );
       fetchResults();
     } catch (error) {
       toast.error('Failed to submit results', { id: toastId });
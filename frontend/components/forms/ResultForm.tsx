@@ -21,7 +21,7 @@ import {
   SelectValue,
 } from '@/components/ui/select';
 import { toast } from 'sonner';
-import api from '@/lib/api';
+import api, { getAll } from '@/lib/api';
 import { useEffect, useState } from 'react';
 
 const formSchema = z.object({
@@ -58,10 +58,10 @@ export default function ResultForm({ result, onFinished }: ResultFormProps) {
       try {
         const [classesRes, examsRes] = await Promise.all([
           api.get('/teacher/classes'),
-          api.get('/teacher/exams'),
+          getAll('/teacher/exams'),
         ]);
         setClasses(classesRes.data);
-        setExams(examsRes.data);
+        setExams(examsRes);
       } catch (error) {
         toast.error('Failed to fetch initial data');
         console.log(error)
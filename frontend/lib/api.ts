@@ -1,4 +1,4 @@
-import axios from 'axios';
+import axios, { AxiosRequestConfig } from 'axios';
 import qs from 'qs';
 
 const baseURL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080';
@@ -14,4 +14,17 @@ const api = axios.create({
 // The request interceptor for adding the Authorization header is no longer needed,
 // as authentication is handled by HttpOnly cookies.
 
+// Paginated list endpoints return one page per call and name the next page in X-Next-Cursor.
+// Follows the cursor until the last page and returns every row.
+export async function getAll<T = any>(url: string, config: AxiosRequestConfig = {}): Promise<T[]> {
+  const rows: T[] = [];
+  let cursor: string | undefined;
+  do {
+    const response = await api.get<T[]>(url, { ...config, params: { ...config.params, cursor } });
+    rows.push(...response.data);
+    cursor = response.headers['x-next-cursor'];
+  } while (cursor);
+  return rows;
+}
+
 export default api;